@@ -2,10 +2,24 @@ package Jtesting;
 
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import application.BlocklistMatcher;
+import application.IntHashIndex;
 import application.NameRecognizer;
 import application.PasswordEvaluator;
 import application.EmailRecognizer;
 import application.UserNameRecognizer;
+import application.ValidationResult;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 /**
  * This JUnit test file tests all the methods in the following classes:
  * - NameRecognizer
@@ -264,4 +278,162 @@ public class Jtest {
         assertEquals("*** Error *** An invalid character has been found!", result,
                 "A password with an invalid character should return the appropriate error message.");
     }
+
+    // *******************************
+    // Tests for the instance-based validators
+    // *******************************
+
+    /**
+     * Test that the result object reports the error code, index and flags.
+     */
+    @Test
+    public void testValidationResultDetails() {
+        PasswordEvaluator evaluator = new PasswordEvaluator();
+        ValidationResult result = new ValidationResult();
+
+        assertFalse(evaluator.validate("Abcdef_1!", result));
+        assertEquals(ValidationResult.Code.INVALID_CHARACTER, result.getCode());
+        assertEquals(8, result.getErrorIndex());
+
+        assertFalse(evaluator.validate("abcdef_1", result));
+        assertEquals(ValidationResult.Code.CONDITIONS_NOT_MET, result.getCode());
+        assertFalse(result.has(ValidationResult.UPPER_CASE));
+        assertTrue(result.has(ValidationResult.LOWER_CASE));
+
+        assertTrue(evaluator.validate("Abcdef_1", result));
+        assertTrue(result.isValid());
+        assertEquals(-1, result.getErrorIndex());
+
+        UserNameRecognizer recognizer = new UserNameRecognizer();
+        assertFalse(recognizer.validate("John$Doe1", result));
+        assertEquals(ValidationResult.Code.INVALID_CHARACTER, result.getCode());
+        assertTrue(recognizer.validate("JohnDoe_1", result));
+    }
+
+    /**
+     * Test that one shared validator gives the same answers when used by many threads at once.
+     */
+    @Test
+    public void testBlocklistMatcher() throws Exception {
+        BlocklistMatcher matcher = BlocklistMatcher.compile(List.of("he", "she", "his", "hers", "bad word", "1234"));
+        assertEquals(5, matcher.getWordCount());
+        assertEquals(-1, matcher.find("Abcdef_9"));
+        assertEquals("hers", matcher.getWord(matcher.find("ushers")));
+        assertEquals("she", matcher.getWord(matcher.find("xshe_")));
+        assertEquals("1234", matcher.getWord(matcher.find("x12!1234")));
+
+        Path file = Files.createTempFile("blocklist", ".bin");
+        try {
+            matcher.write(file);
+            BlocklistMatcher loaded = BlocklistMatcher.load(file);
+            assertEquals(matcher.getStateCount(), loaded.getStateCount());
+            assertEquals("hers", loaded.getWord(loaded.find("ushers")));
+            assertEquals(-1, loaded.find("Abcdef_9"));
+        } finally {
+            Files.delete(file);
+        }
+
+        PasswordEvaluator evaluator = new PasswordEvaluator(new String[] {"qwerty", "password"}, false);
+        ValidationResult result = new ValidationResult();
+        assertFalse(evaluator.validate("Qwerty_password9", result));
+        assertTrue(result.has(ValidationResult.BLOCKED));
+        assertTrue(evaluator.describe(result).contains("Blocked character(s): \"password\""));
+    }
+
+    @Test
+    public void testValidatorsAreThreadSafe() throws Exception {
+        PasswordEvaluator passwords = new PasswordEvaluator();
+        UserNameRecognizer userNames = new UserNameRecognizer();
+        String[] inputs = {"Abcdef_1", "abcdef_1", "Abcdef_1!", "password_1A", "JohnDoe_1", "1JohnDoe", "John$Doe1", ""};
+        String[] expected = new String[inputs.length * 2];
+        for (int i = 0; i < inputs.length; i++) {
+            expected[2 * i] = PasswordEvaluator.evaluatePassword(inputs[i]);
+            expected[2 * i + 1] = UserNameRecognizer.checkForValidUserName(inputs[i]);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    ValidationResult result = new ValidationResult();
+                    for (int round = 0; round < 2000; round++) {
+                        for (int i = 0; i < inputs.length; i++) {
+                            passwords.validate(inputs[i], result);
+                            if (!passwords.describe(result).equals(expected[2 * i])) return false;
+                            userNames.validate(inputs[i], result);
+                            if (!userNames.describe(result).equals(expected[2 * i + 1])) return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(), "Concurrent validation should match single-threaded validation.");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testRecognizersMatchRegexVersions() {
+        Random random = new Random(13);
+        for (int i = 0; i < 20000; i++) {
+            String email = ValidatorBenchmark.randomString(random, "aZ09@.!_ \u00e9", 12);
+            assertEquals(ValidatorBenchmark.regexEmailEvaluator(email), EmailRecognizer.emailEvaluator(email), email);
+            String first = ValidatorBenchmark.randomString(random, "aZ 1-\u00e9", 33);
+            String last = ValidatorBenchmark.randomString(random, "aZ 1-\u00e9", 33);
+            assertEquals(ValidatorBenchmark.regexNameEvaluator(first, last), NameRecognizer.nameEvaluator(first, last),
+                    first + "|" + last);
+        }
+        assertEquals(ValidatorBenchmark.regexEmailEvaluator(null), EmailRecognizer.emailEvaluator(null));
+        assertEquals(ValidatorBenchmark.regexNameEvaluator(null, "Doe"), NameRecognizer.nameEvaluator(null, "Doe"));
+    }
+
+    @Test
+    public void testRecognizerErrorIndex() {
+        ValidationResult result = new ValidationResult();
+        EmailRecognizer email = new EmailRecognizer();
+        assertFalse(email.validate("user@ex!ample.com", result));
+        assertEquals(ValidationResult.Code.INVALID_CHARACTER, result.getCode());
+        assertEquals(7, result.getErrorIndex());
+        assertFalse(email.validate("userexample.com", result));
+        assertEquals(ValidationResult.Code.MISSING_AT, result.getCode());
+        assertTrue(email.validate("user@example.com", result));
+
+        NameRecognizer name = new NameRecognizer();
+        assertFalse(name.validate("John", "Do3", result));
+        assertEquals(ValidationResult.Code.INVALID_CHARACTER, result.getCode());
+        assertEquals(NameRecognizer.LAST_NAME, result.getDetail());
+        assertEquals(2, result.getErrorIndex());
+        assertTrue(name.validate("Mary Ann", "Doe", result));
+    }
+
+    @Test
+    public void testIntHashIndexMatchesHashMap() {
+        Random random = new Random(21);
+        IntHashIndex index = new IntHashIndex();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            // A small key range so removals often hit probe runs that need shifting back
+            int key = random.nextInt(5000) - 2500;
+            int op = random.nextInt(3);
+            if (op == 0) {
+                int value = random.nextInt(1000);
+                assertEquals(expected.getOrDefault(key, IntHashIndex.NO_VALUE), index.put(key, value));
+                expected.put(key, value);
+            } else if (op == 1) {
+                assertEquals(expected.getOrDefault(key, IntHashIndex.NO_VALUE), index.remove(key));
+                expected.remove(key);
+            } else {
+                assertEquals(expected.getOrDefault(key, IntHashIndex.NO_VALUE), index.get(key));
+            }
+            assertEquals(expected.size(), index.size());
+        }
+        for (int key = -2500; key < 2500; key++) {
+            assertEquals(expected.getOrDefault(key, IntHashIndex.NO_VALUE), index.get(key));
+        }
+        assertThrows(IllegalArgumentException.class, () -> index.put(1, -1));
+    }
 }
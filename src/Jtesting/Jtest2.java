@@ -2,15 +2,34 @@ package Jtesting;
 
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.*;
+import java.io.StringReader;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import application.Question;
 import application.Answer;
+import application.QuestionStats;
 import application.Questions;
 import application.Answers;
+import application.User;
+import application.UserImporter;
+import databasePart1.AuthResult;
+import databasePart1.ChangeEvent;
+import databasePart1.DatabaseConfig;
 import databasePart1.DatabaseHelper;
+import databasePart1.InvitationCodeGenerator;
+import databasePart1.PooledConnection;
 
 /**
  * JUnit test class for testing database-related operations 
@@ -29,6 +48,19 @@ public class Jtest2 {
         // Default constructor
     }
 
+    /**
+     * Points every test in this class at the in-memory test database, so no run writes
+     * to the user's own data.
+     */
+    @BeforeAll
+    public static void useTestDatabase() {
+        DatabaseConfig current = DatabaseHelper.getConfig();
+        if (current == null || !"test".equals(current.getProfile())) {
+            DatabaseHelper.shutdownPool();
+            DatabaseHelper.configure(DatabaseConfig.preset("test"));
+        }
+    }
+
     /**
      * Sets up the database connection and initializes objects before each test.
      * 
@@ -58,8 +90,7 @@ public class Jtest2 {
     @Test
     @DisplayName("Delete question from database")
     public void testDeleteQuestion() throws SQLException {
-        int newId = getNewQuestionId();
-        Question question = new Question(newId, "Why are the cars slow?", "Emma", new Date());
+        Question question = new Question(0, "Why are the cars slow?", "Emma", new Date());
         dbHelper.insertQuestion(question);
         dbHelper.deleteQuestion(question.getQuestionID());
         List<Question> questions = dbHelper.getAllQuestions();
@@ -67,17 +98,476 @@ public class Jtest2 {
     }
 
     /**
-     * Updates the question ids so that there aren't random blank slots in the database
+     * Test that the database generates a distinct ID for every new question
+     * 
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    @DisplayName("Generated question IDs are unique")
+    public void testGeneratedQuestionIds() throws SQLException {
+        Question first = new Question(0, "What is a sequence?", "Emma", new Date());
+        Question second = new Question(0, "What is a block of IDs?", "Emma", new Date());
+        int firstId = dbHelper.insertQuestion(first);
+        int secondId = dbHelper.insertQuestion(second);
+        try {
+            assertTrue(firstId > 0);
+            assertNotEquals(firstId, secondId);
+            assertEquals(firstId, first.getQuestionID());
+        } finally {
+            dbHelper.deleteQuestion(firstId);
+            dbHelper.deleteQuestion(secondId);
+        }
+    }
+
+    /**
+     * Test that the answer counts of listed questions are loaded for those questions only
+     * 
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    @DisplayName("Question stats for listed IDs")
+    public void testQuestionStatsForIds() throws SQLException {
+        int first = dbHelper.insertQuestion(new Question(0, "Counted question", "Emma", new Date()));
+        int skipped = dbHelper.insertQuestion(new Question(0, "Skipped question", "Emma", new Date()));
+        int last = dbHelper.insertQuestion(new Question(0, "Other counted question", "Emma", new Date()));
+        try {
+            dbHelper.insertAnswer(new Answer(0, first, "One", "Liam", new Date()));
+            dbHelper.insertAnswer(new Answer(0, first, "Two", "Liam", new Date()));
+            Map<Integer, QuestionStats> stats = dbHelper.getQuestionStats(List.of(first, last));
+            assertEquals(Set.of(first, last), stats.keySet());
+            assertEquals(2, stats.get(first).getAnswerCount());
+            assertEquals(0, stats.get(last).getAnswerCount());
+            assertFalse(stats.containsKey(skipped));
+            assertTrue(dbHelper.getQuestionStats(List.of()).isEmpty());
+        } finally {
+            dbHelper.deleteQuestion(first);
+            dbHelper.deleteQuestion(skipped);
+            dbHelper.deleteQuestion(last);
+        }
+    }
+
+    /**
+     * Test that the streaming reads return every row in order and give the connection
+     * back when the stream is closed
+     * 
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    @DisplayName("Stream questions, answers and users")
+    public void testStreamingReads() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(dbHelper.insertQuestion(new Question(0, "Streamed question " + i, "Emma", new Date())));
+        }
+        int answerId = dbHelper.insertAnswer(new Answer(0, ids.get(0), "Streamed answer", "Liam", new Date()));
+        int active = DatabaseHelper.getConnectionPool().getActiveCount();
+        try {
+            try (Stream<Question> stream = dbHelper.streamAllQuestions(1)) {
+                List<Integer> streamed = stream.map(Question::getQuestionID).toList();
+                assertTrue(streamed.containsAll(ids));
+                assertEquals(streamed.stream().sorted().toList(), streamed);
+                assertEquals(active + 1, DatabaseHelper.getConnectionPool().getActiveCount());
+            }
+            assertEquals(active, DatabaseHelper.getConnectionPool().getActiveCount());
+
+            // Reading only part of the stream still releases the connection
+            try (Stream<Answer> stream = dbHelper.streamAllAnswers()) {
+                assertTrue(stream.anyMatch(a -> a.getAnsID() == answerId && a.getBodyText().equals("Streamed answer")));
+            }
+            assertEquals(active, DatabaseHelper.getConnectionPool().getActiveCount());
+
+            try (Stream<User> stream = dbHelper.streamAllUsers(2)) {
+                assertEquals(dbHelper.getAllUsers().size(), stream.count());
+            }
+            long inTransaction = dbHelper.inTransaction(tx -> {
+                try (Stream<Question> stream = tx.streamAllQuestions()) {
+                    return stream.count();
+                }
+            });
+            assertEquals(dbHelper.getAllQuestions().size(), inTransaction);
+            assertEquals(active, DatabaseHelper.getConnectionPool().getActiveCount());
+            assertThrows(IllegalArgumentException.class, () -> dbHelper.streamAllQuestions(0));
+        } finally {
+            dbHelper.deleteAnswer(answerId);
+            for (int id : ids) {
+                dbHelper.deleteQuestion(id);
+            }
+        }
+    }
+
+    /**
+     * Test that switching the pool to another database leaves nothing of the first one
+     * behind: IDs, search results, cached profiles and invitation codes all come from the
+     * new database
      * 
-     * @return the next available question ID.
      * @throws SQLException if a database access error occurs.
      */
-    private int getNewQuestionId() throws SQLException {
-        List<Question> allQuestions = dbHelper.getAllQuestions();
-        return allQuestions.stream()
-            .mapToInt(Question::getQuestionID)
-            .max()
-            .orElse(0) + 1;
+    @Test
+    @DisplayName("Switch the pool to another database")
+    public void testSwitchDatabase() throws SQLException {
+        String userName = "jtestSwitch" + System.nanoTime() % 100000;
+        dbHelper.register(new User(userName, "Secret#123", "Student", "Emma", "Stone", "emma@asu.edu"));
+        int questionId = dbHelper.insertQuestion(new Question(0, "Switchover zebrafish question", "Emma", new Date()));
+        Properties other = new Properties();
+        other.setProperty("db.profile", "test");
+        other.setProperty("db.path", "FoundationSwitchTest");
+        try {
+            assertEquals(1, dbHelper.searchQuestions("zebrafish", 10).size());
+            assertEquals("Emma", dbHelper.getUserFirstName(userName));
+            dbHelper.generateInvitationCodeWithRole("Student");
+
+            DatabaseHelper.shutdownPool();
+            DatabaseHelper.configure(DatabaseConfig.fromProperties(other));
+            dbHelper.connectToDatabase();
+            try {
+                assertTrue(dbHelper.searchQuestions("zebrafish", 10).isEmpty());
+                assertEquals("", dbHelper.getUserFirstName(userName));
+                // A new database numbers from its own sequence, not the first one's block
+                int otherId = dbHelper.insertQuestion(new Question(0, "Question in the other database", "Liam", new Date()));
+                assertEquals(1, otherId);
+                assertEquals(1, dbHelper.searchQuestions("other database", 10).size());
+                String code = dbHelper.generateInvitationCodeWithRole("Reviewer");
+                assertEquals("Reviewer", dbHelper.validateInvitationCodeAndGetRole(code));
+                try (PooledConnection connection = DatabaseHelper.getConnectionPool().borrow();
+                     PreparedStatement pstmt = connection.prepareStatement("DROP ALL OBJECTS")) {
+                    pstmt.execute();
+                }
+            } finally {
+                DatabaseHelper.shutdownPool();
+                DatabaseHelper.configure(DatabaseConfig.preset("test"));
+                dbHelper.connectToDatabase();
+            }
+            assertEquals(1, dbHelper.searchQuestions("zebrafish", 10).size());
+        } finally {
+            dbHelper.deleteQuestion(questionId);
+            dbHelper.deleteUser(userName);
+        }
+    }
+
+    /**
+     * Test that one authenticate call tells apart every login outcome
+     * 
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    @DisplayName("Authenticate user in one query")
+    public void testAuthenticate() throws SQLException {
+        String userName = "jtestAuth" + System.nanoTime() % 100000;
+        dbHelper.register(new User(userName, "Secret#123", "Student", "Emma", "Stone", "emma@asu.edu"));
+        try {
+            AuthResult success = dbHelper.authenticate(userName, "Secret#123");
+            assertEquals(AuthResult.Status.SUCCESS, success.getStatus());
+            assertEquals("Student", success.getUser().getRole());
+            assertEquals("Emma", success.getUser().getfirstName());
+            assertEquals("emma@asu.edu", success.getUser().getemail());
+
+            assertEquals(AuthResult.Status.BAD_PASSWORD, dbHelper.authenticate(userName, "wrong").getStatus());
+            assertEquals(AuthResult.Status.NO_SUCH_USER, dbHelper.authenticate(userName + "x", "Secret#123").getStatus());
+
+            dbHelper.updatePassword(userName, "482913");
+            assertEquals(AuthResult.Status.OTP_RESET, dbHelper.authenticate(userName, "482913").getStatus());
+        } finally {
+            dbHelper.deleteUser(userName);
+        }
+    }
+
+    /**
+     * Test importing users from CSV: valid rows are registered in one batch and
+     * invalid, repeated and taken names are reported with their line numbers
+     * 
+     * @throws Exception if the import fails.
+     */
+    @Test
+    @DisplayName("Bulk user import")
+    public void testUserImport() throws Exception {
+        String prefix = "jtestImp" + System.nanoTime() % 100000;
+        dbHelper.register(new User(prefix + "t", "Secret_123", "Student", "Taken", "User", "taken@asu.edu"));
+        String csv = "userName,password,role,firstName,lastName,email\n"
+                + prefix + "a,Secret_123,Student,Ann,Lee,ann@asu.edu\n"
+                + prefix + "b,Secret_123,\"Reviewer,Staff\",Bob,Ray,bob@asu.edu\n"
+                + prefix + "c,weak,Student,Cal,Fox,cal@asu.edu\n"
+                + prefix + "a,Secret_123,Student,Ann,Lee,ann@asu.edu\n"
+                + prefix + "t,Secret_123,Student,Tom,Kay,tom@asu.edu\n"
+                + prefix + "d,Secret_123,Admin,Dee,Fay,dee@asu.edu\n"
+                + "only,three,fields\n";
+        try {
+            UserImporter.Report report = new UserImporter(dbHelper).importCsv(new StringReader(csv));
+            assertEquals(2, report.getImported());
+            List<UserImporter.RowError> errors = report.getErrors();
+            assertEquals(5, errors.size());
+            assertEquals(4, errors.get(0).getLine());
+            assertTrue(errors.get(1).getMessage().contains("line 2"));
+            assertEquals(6, errors.get(2).getLine());
+            assertTrue(errors.get(2).getMessage().contains("taken"));
+            assertEquals(8, errors.get(4).getLine());
+
+            assertEquals("Reviewer,Staff", dbHelper.getUserRole(prefix + "b"));
+            assertEquals("Student", dbHelper.getUserRole(prefix + "t"));
+        } finally {
+            for (String suffix : new String[] {"a", "b", "t"}) {
+                dbHelper.deleteUser(prefix + suffix);
+            }
+        }
+    }
+
+    /**
+     * Test that bulk invitation codes are distinct, honour their expiration date and
+     * are purged once used or expired
+     * 
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    @DisplayName("Bulk invitation codes")
+    public void testInvitationCodes() throws SQLException {
+        InvitationCodeGenerator generator = new InvitationCodeGenerator(42);
+        Set<String> seen = new HashSet<>();
+        for (long counter = 0; counter < 100000; counter++) {
+            assertTrue(seen.add(generator.code(counter)));
+        }
+
+        List<String> codes = dbHelper.generateInvitationCodes("Student", 50,
+                new Timestamp(System.currentTimeMillis() + 86400000L));
+        assertEquals(50, new HashSet<>(codes).size());
+        assertEquals(InvitationCodeGenerator.CODE_LENGTH, codes.get(0).length());
+        assertEquals("Student", dbHelper.validateInvitationCodeAndGetRole(codes.get(0)));
+        assertNull(dbHelper.validateInvitationCodeAndGetRole(codes.get(0)));
+
+        String expired = dbHelper.generateInvitationCodes("Staff", 1,
+                new Timestamp(System.currentTimeMillis() - 1000)).get(0);
+        assertNull(dbHelper.validateInvitationCodeAndGetRole(expired));
+
+        assertTrue(dbHelper.purgeInvitationCodes() >= 2);
+        for (String code : codes.subList(1, codes.size())) {
+            assertEquals("Student", dbHelper.validateInvitationCodeAndGetRole(code));
+        }
+        dbHelper.purgeInvitationCodes();
+    }
+
+    /**
+     * Test that a unit of work commits all of its changes or none of them, that search
+     * indexes only see committed rows, and that a lock timeout is retried
+     * 
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    @DisplayName("Transactional unit of work")
+    public void testInTransaction() throws SQLException {
+        String word = "zebrafinch" + System.nanoTime() % 100000;
+        Question rolledBack = new Question(0, "Is the " + word + " rolled back?", "Emma", new Date());
+        assertThrows(SQLException.class, () -> dbHelper.inTransaction(tx -> {
+            tx.insertQuestion(rolledBack);
+            tx.insertAnswer(new Answer(0, rolledBack.getQuestionID(), "Yes", "Liam", new Date()));
+            throw new SQLException("Abort the unit of work");
+        }));
+        assertNull(dbHelper.getQuestionByID(rolledBack.getQuestionID()));
+        assertTrue(dbHelper.searchQuestions(word, 10).isEmpty());
+
+        Question committed = new Question(0, "Is the " + word + " committed?", "Emma", new Date());
+        int answerID = dbHelper.inTransaction(tx -> {
+            tx.insertQuestion(committed);
+            int id = tx.insertAnswer(new Answer(0, committed.getQuestionID(), "Yes", "Liam", new Date()));
+            tx.addNewMessages(committed.getQuestionID(), 1);
+            assertTrue(DatabaseHelper.isInTransaction());
+            return id;
+        });
+        try {
+            assertFalse(DatabaseHelper.isInTransaction());
+            assertEquals(1, dbHelper.getQuestionByID(committed.getQuestionID()).getNewMessagesCount());
+            assertEquals(answerID, dbHelper.getAnswersForQuestion(committed.getQuestionID()).get(0).getAnsID());
+            assertEquals(committed.getQuestionID(), dbHelper.searchQuestions(word, 10).get(0).getQuestionID());
+
+            int[] attempts = {0};
+            String result = dbHelper.inTransaction(tx -> {
+                if (++attempts[0] == 1) {
+                    throw new SQLException("Timeout trying to lock table", "HYT00", 50200);
+                }
+                return "done";
+            });
+            assertEquals("done", result);
+            assertEquals(2, attempts[0]);
+        } finally {
+            dbHelper.deleteQuestion(committed.getQuestionID());
+        }
+    }
+
+    /**
+     * Test that changes are reported once they commit, and not at all when rolled back
+     * 
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    @DisplayName("Change events")
+    public void testChangeEvents() throws SQLException {
+        List<ChangeEvent> events = Collections.synchronizedList(new ArrayList<>());
+        Consumer<ChangeEvent> listener = events::add;
+        DatabaseHelper.addChangeListener(listener);
+        Question question = new Question(0, "Are change events sent?", "Emma", new Date());
+        try {
+            assertThrows(SQLException.class, () -> dbHelper.inTransaction(tx -> {
+                tx.insertQuestion(new Question(0, "Rolled back", "Emma", new Date()));
+                throw new SQLException("Abort the unit of work");
+            }));
+            assertTrue(events.isEmpty());
+
+            int answerID = dbHelper.inTransaction(tx -> {
+                tx.insertQuestion(question);
+                assertTrue(events.isEmpty(), "No events before the commit");
+                return tx.insertAnswer(new Answer(0, question.getQuestionID(), "Yes", "Liam", new Date()));
+            });
+            assertEquals(2, events.size());
+            assertEquals(ChangeEvent.Entity.QUESTION, events.get(0).getEntity());
+            assertEquals(ChangeEvent.Op.INSERT, events.get(0).getOp());
+            assertEquals(answerID, events.get(1).getId());
+
+            events.clear();
+            dbHelper.deleteAnswer(answerID);
+            dbHelper.insertFeedback(question.getQuestionID(), "Emma", "Liam", "Nice question");
+            assertEquals(ChangeEvent.Op.DELETE, events.get(0).getOp());
+            assertEquals(question.getQuestionID(), events.get(0).getQuestionID());
+            assertEquals(ChangeEvent.Entity.FEEDBACK, events.get(1).getEntity());
+            assertEquals("Emma", events.get(1).getUserName());
+            assertEquals("Nice question", dbHelper.getFeedbackByID(events.get(1).getId())[4]);
+            assertEquals("Are change events sent?", dbHelper.getQuestionPreview(question.getQuestionID()).getBodyText());
+            Map<Integer, Question> previews = dbHelper.getQuestionPreviews(List.of(question.getQuestionID(), -1));
+            assertEquals(Set.of(question.getQuestionID()), previews.keySet());
+            assertEquals("Are change events sent?", previews.get(question.getQuestionID()).getBodyText());
+        } finally {
+            DatabaseHelper.removeChangeListener(listener);
+            dbHelper.deleteQuestion(question.getQuestionID());
+        }
+    }
+
+    /**
+     * Test that changes written to the change log by another process update the search
+     * index and user cache and reach the change listeners
+     * 
+     * @throws Exception if a database access error occurs or the wait is interrupted.
+     */
+    @Test
+    @DisplayName("Change feed from other processes")
+    public void testChangeFeed() throws Exception {
+        List<ChangeEvent> events = Collections.synchronizedList(new ArrayList<>());
+        Consumer<ChangeEvent> listener = events::add;
+        String word = "kingfisher" + System.nanoTime() % 100000;
+        String userName = "jtestFeed" + System.nanoTime() % 100000;
+        Question question = new Question(0, "Is the change feed working?", "Emma", new Date());
+        dbHelper.insertQuestion(question);
+        dbHelper.register(new User(userName, "Secret#123", "Student", "Mia", "Cho", "mia@asu.edu"));
+        dbHelper.searchQuestions("feed", 1);     // Load the search index
+        assertEquals("Student", dbHelper.getUserRole(userName));
+        dbHelper.pollChanges();
+        DatabaseHelper.addChangeListener(listener);
+        try {
+            // Another process edits both rows directly and logs the changes with its own origin
+            try (PooledConnection connection = DatabaseHelper.getConnectionPool().borrow()) {
+                try (PreparedStatement pstmt = connection.prepareStatement(
+                        "UPDATE Questions SET bodyText = ? WHERE questionID = ?")) {
+                    pstmt.setString(1, "Is the " + word + " visible elsewhere?");
+                    pstmt.setInt(2, question.getQuestionID());
+                    pstmt.executeUpdate();
+                }
+                try (PreparedStatement pstmt = connection.prepareStatement(
+                        "UPDATE cse360users SET role = 'Student,Reviewer' WHERE userName = ?")) {
+                    pstmt.setString(1, userName);
+                    pstmt.executeUpdate();
+                }
+                try (PreparedStatement pstmt = connection.prepareStatement("INSERT INTO ChangeLog "
+                        + "(origin, entity, op, entityID, questionID, userName) VALUES (0, ?, 'UPDATE', ?, ?, ?)")) {
+                    pstmt.setString(1, "QUESTION");
+                    pstmt.setInt(2, question.getQuestionID());
+                    pstmt.setInt(3, question.getQuestionID());
+                    pstmt.setString(4, null);
+                    pstmt.executeUpdate();
+                    pstmt.setString(1, "USER");
+                    pstmt.setInt(2, 0);
+                    pstmt.setInt(3, -1);
+                    pstmt.setString(4, userName);
+                    pstmt.executeUpdate();
+                }
+            }
+            // The background poll may pick the changes up first
+            long deadline = System.currentTimeMillis() + 5000;
+            while (events.size() < 2 && System.currentTimeMillis() < deadline) {
+                dbHelper.pollChanges();
+                Thread.sleep(20);
+            }
+            assertEquals(2, events.size());
+            assertEquals(question.getQuestionID(), events.get(0).getId());
+            assertEquals(ChangeEvent.Entity.USER, events.get(1).getEntity());
+            assertEquals(question.getQuestionID(), dbHelper.searchQuestions(word, 10).get(0).getQuestionID());
+            assertEquals("Student,Reviewer", dbHelper.getUserRole(userName));
+
+            // Changes made by this process are reported directly, not again by the feed
+            events.clear();
+            dbHelper.addNewMessages(question.getQuestionID(), 1);
+            assertEquals(1, events.size());
+            dbHelper.pollChanges();
+            assertEquals(1, events.size());
+        } finally {
+            DatabaseHelper.removeChangeListener(listener);
+            dbHelper.deleteQuestion(question.getQuestionID());
+            dbHelper.deleteUser(userName);
+        }
+    }
+
+    /**
+     * Test that the storage profiles and their overrides produce the expected URLs
+     */
+    @Test
+    @DisplayName("Database storage profiles")
+    public void testDatabaseConfig() {
+        Properties properties = new Properties();
+        assertEquals("jdbc:h2:~/FoundationDatabase;AUTO_SERVER=TRUE;CACHE_SIZE=32768",
+                DatabaseConfig.fromProperties(properties).getUrl());
+
+        properties.setProperty("db.profile", "lab-server");
+        properties.setProperty("db.server", "labhost:9123");
+        properties.setProperty("db.compress", "true");
+        assertEquals("jdbc:h2:tcp://labhost:9123/~/FoundationDatabase;COMPRESS=TRUE",
+                DatabaseConfig.fromProperties(properties).getUrl());
+
+        properties.clear();
+        properties.setProperty("db.profile", "test");
+        properties.setProperty("db.writeDelay", "0");
+        DatabaseConfig test = DatabaseConfig.fromProperties(properties);
+        assertEquals(DatabaseConfig.Mode.MEMORY, test.getMode());
+        assertEquals("jdbc:h2:mem:FoundationTest;DB_CLOSE_DELAY=-1", test.getUrl());
+
+        properties.setProperty("db.url", "jdbc:h2:mem:other");
+        assertEquals("jdbc:h2:mem:other", DatabaseConfig.fromProperties(properties).getUrl());
+
+        properties.setProperty("db.profile", "cloud");
+        assertThrows(IllegalArgumentException.class, () -> DatabaseConfig.fromProperties(properties));
+        properties.setProperty("db.profile", "desktop");
+        properties.setProperty("db.cacheSize", "lots");
+        assertThrows(IllegalArgumentException.class, () -> DatabaseConfig.fromProperties(properties));
+    }
+
+    /**
+     * Test that repeated profile lookups are served from the cache and that
+     * deleting the user removes the cached profile
+     * 
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    @DisplayName("User profile cache")
+    public void testUserCache() throws SQLException {
+        String userName = "jtestCache" + System.nanoTime() % 100000;
+        assertFalse(dbHelper.doesUserExist(userName));
+        dbHelper.register(new User(userName, "Secret#123", "Student,Staff", "Liam", "Park", "liam@asu.edu"));
+        try {
+            assertTrue(dbHelper.doesUserExist(userName));
+            long hitsBefore = DatabaseHelper.getUserCache().getHits();
+            assertEquals("Student,Staff", dbHelper.getUserRole(userName));
+            assertEquals("Liam", dbHelper.getUserFirstName(userName));
+            assertEquals("Park", dbHelper.getUserLastName(userName));
+            assertEquals("liam@asu.edu", dbHelper.getUserEmail(userName));
+            assertEquals(hitsBefore + 4, DatabaseHelper.getUserCache().getHits());
+        } finally {
+            dbHelper.deleteUser(userName);
+        }
+        assertFalse(dbHelper.doesUserExist(userName));
+        assertNull(dbHelper.getUserRole(userName));
     }
 
     /**
@@ -103,6 +593,149 @@ public class Jtest2 {
         assertFalse(question.checkValidity());
     }
 
+    /**
+     * Test that the in-memory question indexes follow inserts, changes and deletions
+     */
+    @Test
+    @DisplayName("Question repository indexes")
+    public void testQuestionIndexes() {
+        for (int id = 1; id <= 100; id++) {
+            Question q = new Question(id, "Question number " + id, id % 3 == 0 ? "Emma" : "Liam", new Date());
+            q.setResolved(id % 5 == 0);
+            questions.insertQuestion(q);
+        }
+        assertEquals(100, questions.size());
+        assertEquals(33, questions.listQuestionsByAuthor("Emma").size());
+        assertEquals(20, questions.listQuestionsByStatus(true).size());
+
+        // Delete most questions so the storage is compacted, then check order and lookups
+        for (int id = 1; id <= 100; id++) {
+            if (id % 4 != 0) {
+                questions.deleteQuestion(id);
+            }
+        }
+        assertEquals(25, questions.size());
+        assertNull(questions.findQuestionByID(7));
+        assertEquals(8, questions.getQList().get(1).getQuestionID());
+        assertEquals(questions.listAllQuestions().stream().map(Question::getQuestionID).toList(),
+            questions.getQList().stream().map(Question::getQuestionID).toList());
+        assertEquals(List.of(12, 24, 36, 48, 60, 72, 84, 96), questions.listQuestionsByAuthor("Emma").stream()
+            .map(Question::getQuestionID).toList());
+        assertEquals(List.of(20, 40, 60, 80, 100), questions.listQuestionsByStatus(true).stream()
+            .map(Question::getQuestionID).toList());
+
+        // Changing the author and status moves the question between the indexes, in order
+        Question changed = questions.findQuestionByID(24);
+        changed.setPostedBy("Liam");
+        changed.setResolved(true);
+        questions.modifyQuestion(changed);
+        assertEquals(List.of(4, 8, 16, 20, 24, 28), questions.listQuestionsByAuthor("Liam").stream()
+            .map(Question::getQuestionID).limit(6).toList());
+        assertEquals(List.of(20, 24, 40, 60, 80, 100), questions.listQuestionsByStatus(true).stream()
+            .map(Question::getQuestionID).toList());
+        assertEquals(19, questions.listQuestionsByStatus(false).size());
+        assertEquals(24, questions.searchQuestions("number 24").get(0).getQuestionID());
+    }
+
+    /**
+     * Test that the columnar question store gives back every field it was given
+     */
+    @Test
+    @DisplayName("Question store round trip")
+    public void testQuestionStoreRoundTrip() {
+        Date created = new Date(1_700_000_000_000L);
+        Question q = new Question(5, "Where is the lab?", "Olivia", created);
+        q.setResolved(true);
+        q.setAcceptedAnsID(12);
+        q.setNewMessagesCount(3);
+        questions.insertQuestion(q);
+        questions.insertQuestion(new Question(6, "When is the exam?", "Olivia", null));
+
+        Question stored = questions.findQuestionByID(5);
+        assertEquals("Where is the lab?", stored.getBodyText());
+        assertEquals("Olivia", stored.getPostedBy());
+        assertEquals(created, stored.getDateCreated());
+        assertTrue(stored.isResolved());
+        assertEquals(12, stored.getAcceptedAnsID());
+        assertEquals(3, stored.getNewMessagesCount());
+        assertNull(questions.findQuestionByID(6).getDateCreated());
+
+        // Returned questions are copies until they are passed back
+        stored.setBodyText("Where is room 204?");
+        assertEquals("Where is the lab?", questions.findQuestionByID(5).getBodyText());
+        questions.modifyQuestion(stored);
+        assertEquals("Where is room 204?", questions.findQuestionByID(5).getBodyText());
+        assertEquals(5, questions.searchQuestions("room").get(0).getQuestionID());
+        stored.setBodyText("Which building?");
+        questions.modifyQuestion(stored);
+        assertTrue(questions.searchQuestions("room").isEmpty());
+    }
+
+    /**
+     * Test that modifying a stored question or answer to an invalid one leaves it unchanged
+     */
+    @Test
+    @DisplayName("Invalid modification is ignored")
+    public void testInvalidModificationIgnored() {
+        for (int id = 1; id <= 4; id++) {
+            questions.insertQuestion(new Question(id, "Question number " + id, "Emma", new Date()));
+        }
+        Question invalid = questions.findQuestionByID(2);
+        invalid.setBodyText(null);
+        questions.modifyQuestion(invalid);
+        assertEquals(4, questions.size());
+        assertEquals(4, questions.listAllQuestions().size());
+        assertEquals("Question number 2", questions.findQuestionByID(2).getBodyText());
+
+        // Deleting enough to compact must keep every remaining lookup pointing at its own question
+        questions.deleteQuestion(1);
+        questions.deleteQuestion(3);
+        questions.deleteQuestion(4);
+        assertEquals(2, questions.findQuestionByID(2).getQuestionID());
+        assertEquals(List.of(2), questions.searchQuestions("number").stream()
+            .map(Question::getQuestionID).toList());
+
+        answers.insertAnswer(new Answer(1, 1, "An answer", "Liam", new Date()));
+        answers.modifyAnswer(new Answer(1, 1, "  ", "Liam", new Date()));
+        answers.modifyAnswer(new Answer(1, 1, null, "Liam", new Date()));
+        assertEquals(1, answers.listAllAnswers().size());
+        assertEquals("An answer", answers.findAnswerByID(1).getBodyText());
+    }
+
+    /**
+     * Test that the in-memory answer indexes follow inserts, changes and deletions
+     */
+    @Test
+    @DisplayName("Answer repository indexes")
+    public void testAnswerIndexes() {
+        for (int id = 1; id <= 60; id++) {
+            answers.insertAnswer(new Answer(id, id % 3, "Answer number " + id, "Emma", new Date()));
+        }
+        assertEquals(60, answers.size());
+        assertEquals(20, answers.listAnswersForQuestion(1).size());
+        assertTrue(answers.listAnswersForQuestion(7).isEmpty());
+
+        // Delete most answers so the storage is compacted, then check order and lookups
+        for (int id = 1; id <= 60; id++) {
+            if (id % 4 != 0) {
+                answers.deleteAnswer(id);
+            }
+        }
+        assertEquals(15, answers.size());
+        assertNull(answers.findAnswerByID(7));
+        assertEquals(List.of(4, 16, 28, 40, 52), answers.listAnswersForQuestion(1).stream()
+            .map(Answer::getAnsID).toList());
+
+        // Moving an answer to another question keeps both chains in insertion order
+        answers.modifyAnswer(new Answer(28, 2, "Answer number 28", "Emma", new Date()));
+        assertEquals(List.of(4, 16, 40, 52), answers.listAnswersForQuestion(1).stream()
+            .map(Answer::getAnsID).toList());
+        assertEquals(List.of(8, 20, 28, 32, 44, 56), answers.listAnswersForQuestion(2).stream()
+            .map(Answer::getAnsID).toList());
+        assertEquals(2, answers.findAnswerByID(28).getQuestionID());
+        assertEquals(28, answers.filterAnswers("number 28").get(0).getAnsID());
+    }
+
     /**
      * Test to see you user can add and retrieve a question
      */
@@ -0,0 +1,157 @@
+package Jtesting;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import databasePart1.DatabaseConfig;
+import databasePart1.DatabaseHelper;
+import databasePart1.RegistrationResult;
+
+/**
+ * JUnit test class for concurrent sign-ups, checking that an invitation code
+ * can only ever be redeemed once.
+ */
+public class Jtest3 {
+    private static final int THREADS = 8;
+    private static final int CODES = 25;
+
+    private DatabaseHelper dbHelper;
+    private final List<String> createdUsers = new ArrayList<>();
+
+    /**
+     * Default constructor for Jtest3.
+     * Initializes the test class for JUnit execution.
+     */
+    public Jtest3() {
+    }
+
+    /**
+     * Points every test in this class at the in-memory test database, so no run writes
+     * to the user's own data.
+     */
+    @BeforeAll
+    public static void useTestDatabase() {
+        DatabaseConfig current = DatabaseHelper.getConfig();
+        if (current == null || !"test".equals(current.getProfile())) {
+            DatabaseHelper.shutdownPool();
+            DatabaseHelper.configure(DatabaseConfig.preset("test"));
+        }
+    }
+
+    /**
+     * Sets up the database connection before each test.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+    @BeforeEach
+    public void setUp() throws SQLException {
+        dbHelper = new DatabaseHelper();
+        dbHelper.connectToDatabase();
+    }
+
+    /**
+     * Removes the users created by the test and the redeemed codes.
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+    @AfterEach
+    public void tearDown() throws SQLException {
+        for (String userName : createdUsers) {
+            dbHelper.deleteUser(userName);
+        }
+        dbHelper.purgeInvitationCodes();
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Test that when several threads race to sign up with the same codes,
+     * every code creates exactly one account
+     *
+     * @throws Exception if a thread fails.
+     */
+    @Test
+    @DisplayName("Concurrent invitation redemption")
+    public void testConcurrentRedemption() throws Exception {
+        List<String> codes = dbHelper.generateInvitationCodes("Student", CODES, null);
+        String prefix = "jtestRace" + System.nanoTime() % 10000;
+        Map<String, AtomicInteger> redeemed = new ConcurrentHashMap<>();
+        for (String code : codes) {
+            redeemed.put(code, new AtomicInteger());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                Callable<List<String>> signUps = () -> {
+                    DatabaseHelper helper = new DatabaseHelper();
+                    List<String> users = new ArrayList<>();
+                    start.await();
+                    for (int i = 0; i < CODES; i++) {
+                        // Each thread walks the codes from a different offset to maximise contention
+                        String code = codes.get((i + thread * 3) % CODES);
+                        String userName = prefix + "t" + thread + "c" + i;
+                        RegistrationResult result = helper.registerWithInvitation(code, userName, "Secret_123",
+                                "Race", "Tester", "race@asu.edu");
+                        if (result.getStatus() == RegistrationResult.Status.SUCCESS) {
+                            redeemed.get(code).incrementAndGet();
+                            users.add(userName);
+                        }
+                    }
+                    return users;
+                };
+                results.add(pool.submit(signUps));
+            }
+            start.countDown();
+            for (Future<List<String>> result : results) {
+                createdUsers.addAll(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        for (String code : codes) {
+            assertEquals(1, redeemed.get(code).get(), "Code " + code + " must be redeemed exactly once");
+            assertNull(dbHelper.validateInvitationCodeAndGetRole(code));
+        }
+        assertEquals(CODES, createdUsers.size());
+        assertEquals("Student", dbHelper.getUserRole(createdUsers.get(0)));
+    }
+
+    /**
+     * Test that a sign-up with a taken user name leaves the code available
+     *
+     * @throws SQLException if a database access error occurs.
+     */
+    @Test
+    @DisplayName("Taken user name does not consume the code")
+    public void testNameTakenKeepsCode() throws SQLException {
+        String code = dbHelper.generateInvitationCodes("Reviewer", 1, null).get(0);
+        String userName = "jtestTaken" + System.nanoTime() % 10000;
+        assertEquals(RegistrationResult.Status.SUCCESS, dbHelper.registerWithInvitation(code, userName,
+                "Secret_123", "Ann", "Lee", "ann@asu.edu").getStatus());
+        createdUsers.add(userName);
+
+        String second = dbHelper.generateInvitationCodes("Reviewer", 1, null).get(0);
+        assertEquals(RegistrationResult.Status.NAME_TAKEN, dbHelper.registerWithInvitation(second, userName,
+                "Secret_123", "Bob", "Ray", "bob@asu.edu").getStatus());
+        assertEquals(RegistrationResult.Status.INVALID_CODE, dbHelper.registerWithInvitation(code, userName + "x",
+                "Secret_123", "Cal", "Fox", "cal@asu.edu").getStatus());
+        // Validating redeems the second code, so tearDown purges it with the first
+        assertEquals("Reviewer", dbHelper.validateInvitationCodeAndGetRole(second));
+        assertNull(dbHelper.validateInvitationCodeAndGetRole(second));
+    }
+}
@@ -0,0 +1,243 @@
+package Jtesting;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import application.Answer;
+import application.ConcurrentAnswers;
+import application.ConcurrentQuestions;
+import application.Question;
+
+/**
+ * JUnit test class for the concurrent question and answer stores, running writers and
+ * readers against them at the same time.
+ */
+public class Jtest4 {
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int PER_WRITER = 600;
+
+    /**
+     * Default constructor for Jtest4.
+     * Initializes the test class for JUnit execution.
+     */
+    public Jtest4() {
+    }
+
+    /**
+     * Runs the writers and readers together and returns once all have finished, passing on
+     * the first failure of any of them. Readers run until every writer is done.
+     */
+    private static void race(List<Callable<Void>> writers, List<Callable<Void>> readers,
+                             AtomicBoolean writing) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(writers.size() + readers.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> readerResults = new ArrayList<>();
+            for (Callable<Void> reader : readers) {
+                readerResults.add(pool.submit(() -> {
+                    start.await();
+                    return reader.call();
+                }));
+            }
+            List<Future<Void>> writerResults = new ArrayList<>();
+            for (Callable<Void> writer : writers) {
+                writerResults.add(pool.submit(() -> {
+                    start.await();
+                    return writer.call();
+                }));
+            }
+            start.countDown();
+            try {
+                for (Future<Void> result : writerResults) {
+                    result.get();
+                }
+            } finally {
+                writing.set(false);
+            }
+            for (Future<Void> result : readerResults) {
+                result.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Test that readers only ever see whole changes and consistent snapshots while
+     * several threads insert, change and delete questions
+     *
+     * @throws Exception if a thread fails.
+     */
+    @Test
+    @DisplayName("Concurrent question store stress")
+    public void testConcurrentQuestions() throws Exception {
+        ConcurrentQuestions questions = new ConcurrentQuestions();
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        // Each writer owns a range of IDs: it inserts them all, edits the even ones and
+        // deletes every third. An edit changes the body and the status together.
+        List<Callable<Void>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int first = w * PER_WRITER + 1;
+            String author = "writer" + w;
+            writers.add(() -> {
+                for (int id = first; id < first + PER_WRITER; id++) {
+                    questions.insertQuestion(new Question(id, "stress question " + id, author, new Date()));
+                    if (id % 2 == 0) {
+                        Question q = questions.findQuestionByID(id);
+                        q.setBodyText("stress edited question " + id);
+                        q.setResolved(true);
+                        questions.modifyQuestion(q);
+                    }
+                    if (id % 3 == 0) {
+                        questions.deleteQuestion(id);
+                    }
+                }
+                return null;
+            });
+        }
+
+        List<Callable<Void>> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(() -> {
+                while (writing.get()) {
+                    long version = questions.getVersion();
+                    List<Question> snapshot = questions.listAllQuestions();
+                    List<Question> again = questions.listAllQuestions();
+                    if (questions.getVersion() == version) {
+                        // Same version, same questions, even if another reader rebuilt the list
+                        assertEquals(snapshot.stream().map(Question::getQuestionID).toList(),
+                                     again.stream().map(Question::getQuestionID).toList());
+                    }
+                    Set<Integer> seen = new HashSet<>();
+                    for (Question q : snapshot) {
+                        assertTrue(seen.add(q.getQuestionID()), "Duplicate question " + q.getQuestionID());
+                        assertEquals(q.getBodyText().contains("edited"), q.isResolved());
+                    }
+                    assertThrows(UnsupportedOperationException.class, () -> snapshot.add(null));
+
+                    for (Question q : questions.searchQuestions("edited")) {
+                        assertTrue(q.isResolved());
+                    }
+                    for (Question q : questions.listQuestionsByAuthor("writer0")) {
+                        assertTrue(q.getQuestionID() <= PER_WRITER);
+                    }
+                    Question found = questions.findQuestionByID(1 + (int) (version % (WRITERS * PER_WRITER)));
+                    if (found != null) {
+                        assertEquals(found.getBodyText().contains("edited"), found.isResolved());
+                    }
+                }
+                return null;
+            });
+        }
+        race(writers, readers, writing);
+
+        int expected = 0;
+        int edited = 0;
+        for (int id = 1; id <= WRITERS * PER_WRITER; id++) {
+            if (id % 3 != 0) {
+                expected++;
+                if (id % 2 == 0) {
+                    edited++;
+                }
+            }
+        }
+        assertEquals(expected, questions.size());
+        assertEquals(expected, questions.listAllQuestions().size());
+        assertEquals(edited, questions.listQuestionsByStatus(true).size());
+        assertEquals(edited, questions.searchQuestions("edited").size());
+        assertNull(questions.findQuestionByID(3));
+
+        // A snapshot does not follow later changes
+        List<Question> before = questions.listAllQuestions();
+        questions.deleteQuestion(1);
+        assertEquals(expected, before.size());
+        assertEquals(expected - 1, questions.listAllQuestions().size());
+    }
+
+    /**
+     * Test that each question's answers stay complete and in order while several threads
+     * answer, change and delete at the same time
+     *
+     * @throws Exception if a thread fails.
+     */
+    @Test
+    @DisplayName("Concurrent answer store stress")
+    public void testConcurrentAnswers() throws Exception {
+        ConcurrentAnswers answers = new ConcurrentAnswers();
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        // Each writer answers its own question, edits every fourth answer and deletes every fifth
+        List<Callable<Void>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int questionID = w;
+            writers.add(() -> {
+                for (int i = 0; i < PER_WRITER; i++) {
+                    int id = questionID * PER_WRITER + i;
+                    answers.insertAnswer(new Answer(id, questionID, "stress answer " + id, "tester", new Date()));
+                    if (i % 4 == 0) {
+                        Answer a = answers.findAnswerByID(id);
+                        a.setBodyText("stress changed answer " + id);
+                        answers.modifyAnswer(a);
+                    }
+                    if (i % 5 == 0) {
+                        answers.deleteAnswer(id);
+                    }
+                }
+                return null;
+            });
+        }
+
+        List<Callable<Void>> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            int questionID = r % WRITERS;
+            readers.add(() -> {
+                while (writing.get()) {
+                    int previous = -1;
+                    for (Answer a : answers.listAnswersForQuestion(questionID)) {
+                        assertEquals(questionID, a.getQuestionID());
+                        assertTrue(a.getAnsID() > previous, "Answers out of order");
+                        previous = a.getAnsID();
+                    }
+                    Set<Integer> seen = new HashSet<>();
+                    for (Answer a : answers.listAllAnswers()) {
+                        assertTrue(seen.add(a.getAnsID()), "Duplicate answer " + a.getAnsID());
+                    }
+                    for (Answer a : answers.filterAnswers("changed")) {
+                        assertTrue(a.getBodyText().contains("changed"));
+                    }
+                }
+                return null;
+            });
+        }
+        race(writers, readers, writing);
+
+        int perQuestion = 0;
+        int changed = 0;
+        for (int i = 0; i < PER_WRITER; i++) {
+            if (i % 5 != 0) {
+                perQuestion++;
+                if (i % 4 == 0) {
+                    changed++;
+                }
+            }
+        }
+        assertEquals(WRITERS * perQuestion, answers.size());
+        for (int questionID = 0; questionID < WRITERS; questionID++) {
+            assertEquals(perQuestion, answers.listAnswersForQuestion(questionID).size());
+        }
+        assertEquals(WRITERS * changed, answers.filterAnswers("changed").size());
+    }
+}
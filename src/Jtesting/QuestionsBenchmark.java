@@ -0,0 +1,146 @@
+package Jtesting;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import application.Question;
+import application.Questions;
+
+/**
+ * Shows that looking up a question in {@link Questions} takes the same number of steps
+ * whatever the number of questions, and compares it with the linear stream scan it
+ * replaced. Run it as a plain Java program, with enough heap for a million questions
+ * (-Xmx2g). The indexed time still rises a little with size because random lookups into
+ * larger arrays miss the CPU caches more often; the scan time rises with the size itself.
+ * <p>
+ * It then compares the heap taken by a million questions held as Question objects, as
+ * loaded from the database, with the same questions in a Questions store. All questions
+ * share one body string, so only the other fields are measured.
+ * </p>
+ */
+public class QuestionsBenchmark {
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000};
+    private static final int LOOKUPS = 1 << 20;
+    // The scan is too slow to time a million lookups at every size
+    private static final int SCAN_LOOKUPS = 2_000;
+    private static final int FOOTPRINT_SIZE = 1_000_000;
+    private static final int AUTHORS = 300;
+
+    /**
+     * Default constructor for QuestionsBenchmark.
+     */
+    public QuestionsBenchmark() {
+    }
+
+    /**
+     * The lookup as it was written over an ArrayList.
+     */
+    static Question scanForQuestion(List<Question> qList, int qID) {
+        return qList.stream()
+                   .filter(q -> q.getQuestionID() == qID)
+                   .findFirst()
+                   .orElse(null);
+    }
+
+    private interface Body {
+        int run(int id);
+    }
+
+    /**
+     * Times a lookup body over random IDs and returns the average nanoseconds per call.
+     */
+    private static double time(int[] ids, int calls, Body body) {
+        int sink = 0;
+        for (int i = 0; i < calls; i++) {       // Warm up
+            sink += body.run(ids[i & (ids.length - 1)]);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            sink += body.run(ids[i & (ids.length - 1)]);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) {
+            System.out.println();   // Keeps the results alive
+        }
+        return (double) elapsed / calls;
+    }
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args Not used.
+     */
+    public static void main(String[] args) {
+        Random random = new Random(7);
+        Date date = new Date();
+        System.out.printf("%10s %14s %14s%n", "questions", "indexed ns", "scan ns");
+        for (int size : SIZES) {
+            Questions questions = new Questions();
+            List<Question> qList = new ArrayList<>(size);
+            for (int id = 1; id <= size; id++) {
+                Question q = new Question(id, "Q" + id, "user" + (id % 300), date);
+                questions.insertQuestion(q);
+                qList.add(q);
+            }
+            int[] ids = new int[LOOKUPS];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = 1 + random.nextInt(size);
+            }
+
+            double indexed = time(ids, LOOKUPS, id -> questions.findQuestionByID(id).getQuestionID());
+            double scan = time(ids, SCAN_LOOKUPS, id -> scanForQuestion(qList, id).getQuestionID());
+            System.out.printf("%10d %14.1f %14.1f%n", size, indexed, scan);
+        }
+        footprint();
+    }
+
+    /**
+     * Returns the heap in use after a full collection.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Builds a question the way the database does, with its own Date and author string.
+     */
+    private static Question loadQuestion(int id, String body, long now) {
+        Question q = new Question(id, body, new String("user" + (id % AUTHORS)), new Date(now - id * 1000L));
+        q.setResolved(id % 3 == 0);
+        q.setAcceptedAnsID(id % 3 == 0 ? id : -1);
+        return q;
+    }
+
+    private static void footprint() {
+        String body = "What does this question cost?";
+        long now = System.currentTimeMillis();
+
+        long before = usedHeap();
+        List<Question> objects = new ArrayList<>(FOOTPRINT_SIZE);
+        for (int id = 1; id <= FOOTPRINT_SIZE; id++) {
+            objects.add(loadQuestion(id, body, now));
+        }
+        long objectBytes = usedHeap() - before;
+        int kept = objects.size();
+        objects = null;
+
+        before = usedHeap();
+        Questions questions = new Questions();
+        for (int id = 1; id <= FOOTPRINT_SIZE; id++) {
+            questions.insertQuestion(loadQuestion(id, body, now));
+        }
+        long columnBytes = usedHeap() - before;
+        kept += questions.size();
+
+        System.out.printf("%nbytes per question for %d questions (%d kept)%n", FOOTPRINT_SIZE, kept);
+        System.out.printf("%14s %14s%n", "objects", "Questions");
+        System.out.printf("%14.1f %14.1f%n", (double) objectBytes / FOOTPRINT_SIZE,
+                          (double) columnBytes / FOOTPRINT_SIZE);
+    }
+}
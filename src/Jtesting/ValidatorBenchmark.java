@@ -0,0 +1,130 @@
+package Jtesting;
+
+import java.util.Random;
+
+import application.EmailRecognizer;
+import application.NameRecognizer;
+import application.ValidationResult;
+
+/**
+ * Compares the single-pass email and name recognizers with the regular expression
+ * versions they replaced. Run it as a plain Java program; it warms up each version
+ * before timing it and prints the average time per call.
+ */
+public class ValidatorBenchmark {
+    private static final int INPUTS = 4096;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int TIMED_ROUNDS = 500;
+
+    /**
+     * Default constructor for ValidatorBenchmark.
+     */
+    public ValidatorBenchmark() {
+    }
+
+    /**
+     * The email check as it was written with String.matches.
+     */
+    static String regexEmailEvaluator(String email) {
+        if (email == null || email.isEmpty()) {
+            return "Error: Email cannot be null or empty.";
+        }
+        if (!email.matches("^[a-zA-Z0-9@.]+$")) {
+            return "Error: Email contains invalid characters. Only alphabets, numbers, '@', and '.' are allowed.";
+        }
+        if (!email.matches(".*[a-zA-Z].*")) {
+            return "Error: Email must contain at least one alphabet.";
+        }
+        if (!email.contains("@")) {
+            return "Error: Email must contain '@'.";
+        }
+        if (!email.contains(".")) {
+            return "Error: Email must contain '.'.";
+        }
+        return "";
+    }
+
+    /**
+     * The name check as it was written with String.matches.
+     */
+    static String regexNameEvaluator(String firstname, String lastname) {
+        if (firstname == null || lastname == null) {
+            return "Error: First name and Last name cannot be null.";
+        }
+        if (firstname.length() > 30) {
+            return "Error: First name exceeds 30 characters.";
+        }
+        if (lastname.length() > 30) {
+            return "Error: Last name exceeds 30 characters.";
+        }
+        String validPattern = "^[a-zA-Z ]+$";
+        if (!firstname.matches(validPattern)) {
+            return "Error: First name contains invalid characters. Only alphabets and spaces are allowed.";
+        }
+        if (!lastname.matches(validPattern)) {
+            return "Error: Last name contains invalid characters. Only alphabets and spaces are allowed.";
+        }
+        return "";
+    }
+
+    /**
+     * Returns a random string of up to maxLength characters drawn from alphabet.
+     */
+    static String randomString(Random random, String alphabet, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private interface Body {
+        int run(int index);
+    }
+
+    private static void time(String name, Body body) {
+        int sink = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int i = 0; i < INPUTS; i++) {
+                sink += body.run(i);
+            }
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < TIMED_ROUNDS; round++) {
+            for (int i = 0; i < INPUTS; i++) {
+                sink += body.run(i);
+            }
+        }
+        double nanos = (double) (System.nanoTime() - start) / ((long) TIMED_ROUNDS * INPUTS);
+        System.out.printf("%-24s %8.1f ns/call   (%d)%n", name, nanos, sink);
+    }
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args Not used.
+     */
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        String[] emails = new String[INPUTS];
+        String[] firsts = new String[INPUTS];
+        String[] lasts = new String[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            // Mostly well-formed inputs, as a sign-up form sees them
+            emails[i] = i % 8 == 0 ? randomString(random, "abc12@.!", 24)
+                    : randomString(random, "abcdefgh", 10) + "@" + randomString(random, "abcdef", 8) + ".com";
+            firsts[i] = i % 8 == 1 ? randomString(random, "ab1 ", 12) : "A" + randomString(random, "abcdef ", 12);
+            lasts[i] = "B" + randomString(random, "abcdefgh", 14);
+        }
+
+        EmailRecognizer email = new EmailRecognizer();
+        NameRecognizer name = new NameRecognizer();
+        ValidationResult result = new ValidationResult();
+
+        time("email regex", i -> regexEmailEvaluator(emails[i]).length());
+        time("email single pass", i -> email.validate(emails[i], result) ? 1 : 0);
+        time("name regex", i -> regexNameEvaluator(firsts[i], lasts[i]).length());
+        time("name single pass", i -> name.validate(firsts[i], lasts[i], result) ? 1 : 0);
+    }
+}
@@ -1,13 +1,18 @@
 package application;
 
+import databasePart1.AsyncDatabase;
 import databasePart1.DatabaseHelper;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.ObservableList;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+
 //adds for background
 import javafx.scene.image.Image;
 import javafx.scene.layout.Background;
@@ -91,19 +96,18 @@ public class AdminHomePage {
         // Add all columns to the table.
         userTable.getColumns().addAll(usernameColumn, roleColumn, firstNameColumn, lastNameColumn, emailColumn);
 
-        // DatabaseHelper instance for database operations.
+        // DatabaseHelper instance for database operations, called in the background.
         DatabaseHelper dbHelper = new DatabaseHelper();
+        AsyncDatabase async = new AsyncDatabase(dbHelper);
+        BackgroundTasks tasks = new BackgroundTasks();
 
-        // Load users into the table.
+        // Load users into the table. A reload replaces one that is still running.
         Runnable loadUsers = () -> {
             userTable.getItems().clear();
-            try {
-                dbHelper.connectToDatabase();
-                ObservableList<User> users = dbHelper.getAllUsers();
-                userTable.setItems(users);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            tasks.run("users", async.supply(db -> {
+                db.connectToDatabase();
+                return db.getAllUsers();
+            }), users -> userTable.setItems(users), e -> e.printStackTrace());
         };
 
         // Initially load the users.
@@ -126,17 +130,58 @@ public class AdminHomePage {
                     ButtonType.YES, ButtonType.NO);
             confirmation.showAndWait();
             if (confirmation.getResult() == ButtonType.YES) {
-                boolean success = dbHelper.deleteUser(selectedUser.getUserName());
-                if (success) {
-                    Alert info = new Alert(Alert.AlertType.INFORMATION, "User deleted successfully.");
-                    info.showAndWait();
-                    loadUsers.run();  // Refresh the user list.
-                } else {
-                    Alert error = new Alert(Alert.AlertType.ERROR, "Failed to delete the user.");
-                    error.showAndWait();
-                }
+                tasks.run(null, async.supply(db -> db.deleteUser(selectedUser.getUserName())), success -> {
+                    if (success) {
+                        Alert info = new Alert(Alert.AlertType.INFORMATION, "User deleted successfully.");
+                        info.showAndWait();
+                        loadUsers.run();  // Refresh the user list.
+                    } else {
+                        Alert error = new Alert(Alert.AlertType.ERROR, "Failed to delete the user.");
+                        error.showAndWait();
+                    }
+                }, ex -> new Alert(Alert.AlertType.ERROR, "Failed to delete the user.").showAndWait());
             }
         });
+        // Import button to register a cohort of users from a CSV file.
+        Button importButton = new Button("Import Users (CSV)");
+        importButton.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Import Users");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv", "*.txt"));
+            File file = chooser.showOpenDialog(primaryStage);
+            if (file == null) {
+                return;
+            }
+            importButton.setDisable(true);
+            tasks.run("import", async.supply(db -> {
+                try {
+                    return new UserImporter(db).importFile(file.toPath());
+                } catch (IOException ex) {
+                    throw new SQLException("Could not read " + file.getName() + ": " + ex.getMessage(), ex);
+                }
+            }), report -> {
+                importButton.setDisable(false);
+                Alert info = new Alert(report.getErrors().isEmpty() ? Alert.AlertType.INFORMATION
+                        : Alert.AlertType.WARNING, report.toString() + ".");
+                info.setHeaderText("Import finished");
+                if (!report.getErrors().isEmpty()) {
+                    StringBuilder details = new StringBuilder();
+                    for (UserImporter.RowError error : report.getErrors()) {
+                        details.append(error).append('\n');
+                    }
+                    TextArea errorArea = new TextArea(details.toString());
+                    errorArea.setEditable(false);
+                    info.getDialogPane().setExpandableContent(errorArea);
+                    info.getDialogPane().setExpanded(true);
+                }
+                info.showAndWait();
+                loadUsers.run();
+            }, ex -> {
+                importButton.setDisable(false);
+                new Alert(Alert.AlertType.ERROR, "Import failed, no users were added: " + ex.getMessage()).showAndWait();
+            });
+        });
+
         //go to get the otp
         Button resetPasswordButton = new Button("SET OTP");
         resetPasswordButton.setOnAction(e -> {
@@ -153,7 +198,7 @@ public class AdminHomePage {
         
 
         // Add components to the layout.
-        layout.getChildren().addAll(adminLabel, userTable, deleteButton, resetPasswordButton, backButton);
+        layout.getChildren().addAll(adminLabel, tasks.getIndicator(), userTable, deleteButton, importButton, resetPasswordButton, backButton);
 
         Scene adminScene = new Scene(layout, 800, 400);
 
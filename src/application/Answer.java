@@ -34,6 +34,10 @@ public class Answer {
         return answerID;
     }
     
+    public void setAnsID(int id) {
+        this.answerID = id;
+    }
+    
     public int getQuestionID() {
         return questionID;
     }
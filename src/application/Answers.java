@@ -2,67 +2,248 @@ package application;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 
 /**
  * Manages a collection of answers in the Q&A system.
  * Provides methods for adding, updating, and retrieving answers.
+ * <p>
+ * Answers are not kept as objects. Each field is stored in its own array, in the order
+ * the answers were inserted: answer and question IDs as ints, creation dates as epoch
+ * milliseconds, and authors as codes into a {@link StringDictionary}. A primitive index
+ * maps each answer ID to its position, and the answers of each question are chained in
+ * insertion order. Finding, modifying and deleting an answer take constant time, and
+ * listing the answers of a question takes time proportional to that question's answers
+ * only. A deleted answer leaves a hole that is closed up once holes make up half of the
+ * arrays.
+ * </p>
+ * <p>
+ * Every method that returns answers builds new Answer objects from the arrays. Changing
+ * one does not change the stored answer until it is passed to
+ * {@link #modifyAnswer(Answer)}.
+ * </p>
  */
 public class Answers {
-    private List<Answer> ansList;
-    
+    private static final int NONE = SlotChains.NONE;
+    private static final int INITIAL_CAPACITY = 16;
+    // Stored for an answer without a creation date
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    // One entry per slot, in insertion order; a deleted answer leaves a null body until the next compaction
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] questionIDs = new int[INITIAL_CAPACITY];
+    private String[] bodies = new String[INITIAL_CAPACITY];
+    private int[] authors = new int[INITIAL_CAPACITY];
+    private long[] created = new long[INITIAL_CAPACITY];
+
+    private final StringDictionary authorNames = new StringDictionary();
+    private final SlotChains byQuestion = new SlotChains(INITIAL_CAPACITY);
+    private final IntHashIndex byId = new IntHashIndex();
+    private int used = 0;       // Slots filled so far, including holes
+    private int count = 0;      // Answers stored
+
+    // Full-text index over the answer bodies, built by the first search
+    private TextIndex searchIndex;
+
     /**
      * Initializes a new empty collection of answers.
      */
     public Answers() {
-        ansList = new ArrayList<>();
     }
-    
+
     /**
-     * Adds a new answer to the collection if it's valid.
-     * 
+     * Adds a new answer to the collection if it's valid. An answer whose ID is already
+     * stored replaces it.
+     *
      * @param a The answer to be added.
      */
     public void insertAnswer(Answer a) {
         if (a != null && a.checkValidity()) {
-            ansList.add(a);
+            int slot = byId.get(a.getAnsID());
+            if (slot != NONE) {
+                replace(slot, a);
+                return;
+            }
+            if (used == ids.length) {
+                grow();
+            }
+            slot = used++;
+            ids[slot] = a.getAnsID();
+            questionIDs[slot] = a.getQuestionID();
+            byQuestion.link(slot, a.getQuestionID());
+            store(slot, a);
+            byId.put(a.getAnsID(), slot);
+            count++;
         }
     }
-    
+
     public void deleteAnswer(int ansID) {
-        ansList.removeIf(a -> a.getAnsID() == ansID);
+        int slot = byId.remove(ansID);
+        if (slot == NONE) {
+            return;
+        }
+        byQuestion.unlink(slot, questionIDs[slot]);
+        bodies[slot] = null;
+        count--;
+        if (searchIndex != null) {
+            searchIndex.remove(ansID);
+        }
+        if (used - count > count) {
+            compact();
+        }
     }
-    
+
+    /**
+     * Replaces a stored answer with a new version of it. An answer that is not stored, or
+     * not valid, is ignored.
+     */
     public void modifyAnswer(Answer a) {
-        if (a != null) {
-            for (int i = 0; i < ansList.size(); i++) {
-                if (ansList.get(i).getAnsID() == a.getAnsID()) {
-                    ansList.set(i, a);
-                    break;
-                }
+        if (a != null && a.checkValidity()) {
+            int slot = byId.get(a.getAnsID());
+            if (slot != NONE) {
+                replace(slot, a);
             }
         }
     }
-    
+
     public Answer findAnswerByID(int ansID) {
-        return ansList.stream()
-                     .filter(a -> a.getAnsID() == ansID)
-                     .findFirst()
-                     .orElse(null);
+        int slot = byId.get(ansID);
+        return slot == NONE ? null : materialize(slot);
     }
-    
+
     public List<Answer> listAllAnswers() {
-        return new ArrayList<>(ansList);
+        List<Answer> all = new ArrayList<>(count);
+        for (int i = 0; i < used; i++) {
+            if (bodies[i] != null) {
+                all.add(materialize(i));
+            }
+        }
+        return all;
     }
-    
+
+    /**
+     * Returns the number of answers stored.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Finds the answers whose body contains every word of the keyword, either whole
+     * or as the start of a longer word. Results are ranked best match first. A blank
+     * keyword matches every answer.
+     */
     public List<Answer> filterAnswers(String keyword) {
-        return ansList.stream()
-                     .filter(a -> a.getBodyText().toLowerCase().contains(keyword.toLowerCase()))
+        if (keyword.isBlank()) {
+            return listAllAnswers();
+        }
+        return searchIndex().search(keyword, Integer.MAX_VALUE).stream()
+                     .map(this::findAnswerByID)
                      .toList();
     }
-    
+
+    /**
+     * Returns the full-text index, building it the first time.
+     */
+    private TextIndex searchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new TextIndex();
+            for (int slot = 0; slot < used; slot++) {
+                if (bodies[slot] != null) {
+                    searchIndex.put(ids[slot], bodies[slot]);
+                }
+            }
+        }
+        return searchIndex;
+    }
+
+    /**
+     * Builds the full-text index now if no search has yet, so that later searches only
+     * read it.
+     */
+    void prepareSearch() {
+        searchIndex();
+    }
+
+    /**
+     * Returns the answers to one question, in insertion order.
+     */
     public List<Answer> listAnswersForQuestion(int questionID) {
-        return ansList.stream()
-                     .filter(a -> a.getQuestionID() == questionID)
-                     .toList();
+        List<Answer> found = new ArrayList<>();
+        for (int slot = byQuestion.first(questionID); slot != NONE; slot = byQuestion.next(slot)) {
+            found.add(materialize(slot));
+        }
+        return found;
+    }
+
+    /**
+     * Builds an Answer from the fields stored in a slot.
+     */
+    private Answer materialize(int slot) {
+        long millis = created[slot];
+        return new Answer(ids[slot], questionIDs[slot], bodies[slot], authorNames.decode(authors[slot]),
+                          millis == NO_DATE ? null : new Date(millis));
+    }
+
+    /**
+     * Writes the fields of an answer that are not indexed by position into a slot.
+     */
+    private void store(int slot, Answer a) {
+        Date date = a.getDateCreated();
+        bodies[slot] = a.getBodyText();
+        authors[slot] = authorNames.encode(a.getAnsweredBy());
+        created[slot] = date == null ? NO_DATE : date.getTime();
+        if (searchIndex != null) {
+            searchIndex.put(a.getAnsID(), a.getBodyText());
+        }
+    }
+
+    /**
+     * Stores a new version of the answer in a slot, moving it to another question's
+     * chain if its question changed.
+     */
+    private void replace(int slot, Answer a) {
+        if (questionIDs[slot] != a.getQuestionID()) {
+            byQuestion.unlink(slot, questionIDs[slot]);
+            questionIDs[slot] = a.getQuestionID();
+            byQuestion.link(slot, a.getQuestionID());
+        }
+        store(slot, a);
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        questionIDs = Arrays.copyOf(questionIDs, capacity);
+        bodies = Arrays.copyOf(bodies, capacity);
+        authors = Arrays.copyOf(authors, capacity);
+        created = Arrays.copyOf(created, capacity);
+        byQuestion.grow(capacity);
+    }
+
+    /**
+     * Closes the holes left by deleted answers and rebuilds the indexes on the new
+     * positions.
+     */
+    private void compact() {
+        int to = 0;
+        for (int from = 0; from < used; from++) {
+            if (bodies[from] != null) {
+                ids[to] = ids[from];
+                questionIDs[to] = questionIDs[from];
+                bodies[to] = bodies[from];
+                authors[to] = authors[from];
+                created[to] = created[from];
+                to++;
+            }
+        }
+        Arrays.fill(bodies, to, used, null);
+        used = to;
+        byQuestion.clear();
+        for (int slot = 0; slot < used; slot++) {
+            byQuestion.link(slot, questionIDs[slot]);
+            byId.put(ids[slot], slot);
+        }
     }
 }
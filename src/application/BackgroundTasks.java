@@ -0,0 +1,98 @@
+package application;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+import javafx.scene.control.ProgressIndicator;
+
+/**
+ * Tracks the background requests started by one page and delivers their results on the
+ * JavaFX application thread.
+ * <p>
+ * Requests can be given a key. Starting a request with a key cancels the earlier
+ * request with the same key, and the earlier request's result is dropped, so only the
+ * latest of several rapid searches reaches the screen. The page's loading indicator is
+ * shown while any request is running. All methods must be called on the JavaFX thread.
+ * </p>
+ */
+public class BackgroundTasks {
+    private final ProgressIndicator indicator = new ProgressIndicator();
+    private final Map<String, CompletableFuture<?>> latest = new HashMap<>();
+    private int running = 0;
+
+    public BackgroundTasks() {
+        indicator.setMaxSize(24, 24);
+        indicator.setVisible(false);
+        indicator.setManaged(false);
+    }
+
+    /**
+     * Returns the spinner shown while requests are running, to be placed on the page.
+     */
+    public ProgressIndicator getIndicator() {
+        return indicator;
+    }
+
+    /**
+     * Waits for a request in the background and hands its result to the page.
+     *
+     * @param key Requests with the same key replace each other, or null if this request
+     *            never replaces another.
+     * @param request The running request.
+     * @param onSuccess Receives the result on the JavaFX thread.
+     * @param onError Receives the failure on the JavaFX thread.
+     */
+    public <T> void run(String key, CompletableFuture<T> request, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        if (key != null) {
+            cancel(key);
+            latest.put(key, request);
+        }
+        setRunning(+1);
+        request.whenComplete((result, error) -> Platform.runLater(() -> {
+            setRunning(-1);
+            if (key != null) {
+                if (latest.get(key) != request) {
+                    return;     // Replaced by a newer request
+                }
+                latest.remove(key);
+            }
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (!(cause instanceof CancellationException)) {
+                    onError.accept(cause);
+                }
+            }
+        }));
+    }
+
+    /**
+     * Returns true if a request with the given key is still running.
+     */
+    public boolean isRunning(String key) {
+        return latest.containsKey(key);
+    }
+
+    /**
+     * Cancels the running request with the given key, if any. Its result is dropped.
+     */
+    public void cancel(String key) {
+        CompletableFuture<?> previous = latest.remove(key);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    private void setRunning(int change) {
+        running += change;
+        indicator.setVisible(running > 0);
+        indicator.setManaged(running > 0);
+    }
+}
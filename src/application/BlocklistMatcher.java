@@ -0,0 +1,411 @@
+package application;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A compiled Aho–Corasick automaton that finds blocked words inside a password in a
+ * single left-to-right pass, however many words are blocked.
+ * <p>
+ * The automaton only knows the characters a password may contain (A-Z, a-z, 0-9 and _);
+ * any other character sends it back to the start. Its states are numbered in breadth
+ * first order, so the children of a state are consecutive states and the whole automaton
+ * fits in a few flat arrays: the first edge of each state, the character on each edge,
+ * the failure link of each state and the word reported at each state. When several
+ * blocked words occur, the longest one is reported.
+ * </p>
+ * <p>
+ * A matcher can be saved with {@link #write(Path)} and loaded again with
+ * {@link #load(Path)}, which memory-maps the file and uses it in place, so even a list of
+ * hundreds of thousands of breached passwords loads instantly. Run this class with a text
+ * file of words, one per line, and an output path to build such a file. A matcher never
+ * changes after it is built, so it can be shared by any number of threads.
+ * </p>
+ */
+public class BlocklistMatcher {
+    // Characters a password may contain, in the order of their symbol numbers
+    private static final String ALPHABET =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz_";
+    private static final int MAGIC = 0x424C4B31;    // "BLK1"
+    private static final int HEADER_INTS = 4;       // magic, state count, word count, word bytes
+
+    // Symbol number of every ASCII character, or -1 if it cannot occur in a password
+    private static final byte[] SYMBOL = new byte[128];
+    static {
+        Arrays.fill(SYMBOL, (byte) -1);
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            SYMBOL[ALPHABET.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final int stateCount;
+    private final IntBuffer firstEdge;     // Edges of state s are firstEdge[s] .. firstEdge[s + 1] - 1
+    private final ByteBuffer edgeSymbol;   // Symbol on edge e, which leads to state e + 1
+    private final IntBuffer fail;          // Longest proper suffix of state s that is also a state
+    private final IntBuffer match;         // Word reported when state s is reached, or -1
+    private final IntBuffer wordStart;     // Word w is wordBytes[wordStart[w] .. wordStart[w + 1] - 1]
+    private final ByteBuffer wordBytes;
+
+    private BlocklistMatcher(int stateCount, IntBuffer firstEdge, ByteBuffer edgeSymbol, IntBuffer fail,
+            IntBuffer match, IntBuffer wordStart, ByteBuffer wordBytes) {
+        this.stateCount = stateCount;
+        this.firstEdge = firstEdge;
+        this.edgeSymbol = edgeSymbol;
+        this.fail = fail;
+        this.match = match;
+        this.wordStart = wordStart;
+        this.wordBytes = wordBytes;
+    }
+
+    /**
+     * Returns the symbol number of a character, or -1 if it cannot occur in a password.
+     */
+    private static int symbol(char c) {
+        return c < 128 ? SYMBOL[c] : -1;
+    }
+
+    /**
+     * Builds a matcher for a list of words. Empty words, duplicates and words with
+     * characters a password cannot contain are skipped, since they can never match.
+     *
+     * @param words The blocked words.
+     */
+    public static BlocklistMatcher compile(Collection<String> words) {
+        // Build a trie with first-child / next-sibling links
+        int capacity = 1024;
+        int[] child = new int[capacity];
+        int[] sibling = new int[capacity];
+        byte[] label = new byte[capacity];
+        int[] word = new int[capacity];
+        Arrays.fill(child, -1);
+        Arrays.fill(word, -1);
+        int nodes = 1;
+
+        List<String> kept = new ArrayList<>();
+        nextWord:
+        for (String w : words) {
+            if (w == null || w.isEmpty()) {
+                continue;
+            }
+            for (int i = 0; i < w.length(); i++) {
+                if (symbol(w.charAt(i)) < 0) {
+                    continue nextWord;
+                }
+            }
+            int node = 0;
+            for (int i = 0; i < w.length(); i++) {
+                byte sym = (byte) symbol(w.charAt(i));
+                int c = child[node];
+                while (c >= 0 && label[c] != sym) {
+                    c = sibling[c];
+                }
+                if (c < 0) {
+                    if (nodes == capacity) {
+                        capacity *= 2;
+                        child = grow(child, capacity);
+                        sibling = Arrays.copyOf(sibling, capacity);
+                        label = Arrays.copyOf(label, capacity);
+                        word = grow(word, capacity);
+                    }
+                    c = nodes++;
+                    label[c] = sym;
+                    sibling[c] = child[node];
+                    child[node] = c;
+                }
+                node = c;
+            }
+            if (word[node] < 0) {
+                word[node] = kept.size();
+                kept.add(w);
+            }
+        }
+
+        // Renumber the trie in breadth first order with each state's children sorted by symbol
+        int[] order = new int[nodes];      // New state -> trie node
+        int[] firstEdge = new int[nodes + 1];
+        byte[] edgeSymbol = new byte[nodes];
+        int[] sorted = new int[ALPHABET.length()];
+        int tail = 1;
+        for (int s = 0; s < nodes; s++) {
+            firstEdge[s] = tail - 1;
+            // A state has at most one child per symbol, so an insertion sort is enough
+            int count = 0;
+            for (int c = child[order[s]]; c >= 0; c = sibling[c]) {
+                int i = count++;
+                while (i > 0 && label[sorted[i - 1]] > label[c]) {
+                    sorted[i] = sorted[i - 1];
+                    i--;
+                }
+                sorted[i] = c;
+            }
+            for (int i = 0; i < count; i++) {
+                order[tail] = sorted[i];
+                edgeSymbol[tail - 1] = label[sorted[i]];
+                tail++;
+            }
+        }
+        firstEdge[nodes] = nodes - 1;
+
+        // Pack the words
+        int[] wordStart = new int[kept.size() + 1];
+        int totalBytes = 0;
+        for (int w = 0; w < kept.size(); w++) {
+            wordStart[w] = totalBytes;
+            totalBytes += kept.get(w).length();
+        }
+        wordStart[kept.size()] = totalBytes;
+        byte[] wordBytes = new byte[totalBytes];
+        for (int w = 0; w < kept.size(); w++) {
+            byte[] b = kept.get(w).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(b, 0, wordBytes, wordStart[w], b.length);
+        }
+
+        // Failure links and reported words, computed in breadth first order so a state's
+        // failure target is always finished before the state itself
+        int[] failArr = new int[nodes];
+        int[] matchArr = new int[nodes];
+        matchArr[0] = -1;
+        BlocklistMatcher partial = new BlocklistMatcher(nodes, IntBuffer.wrap(firstEdge),
+                ByteBuffer.wrap(edgeSymbol), IntBuffer.wrap(failArr), IntBuffer.wrap(matchArr),
+                IntBuffer.wrap(wordStart), ByteBuffer.wrap(wordBytes));
+        for (int s = 0; s < nodes; s++) {
+            for (int e = firstEdge[s]; e < firstEdge[s + 1]; e++) {
+                int t = e + 1;
+                int sym = edgeSymbol[e];
+                if (s == 0) {
+                    failArr[t] = 0;
+                } else {
+                    int f = failArr[s];
+                    int next = partial.child(f, sym);
+                    while (next < 0 && f != 0) {
+                        f = failArr[f];
+                        next = partial.child(f, sym);
+                    }
+                    failArr[t] = next < 0 ? 0 : next;
+                }
+                matchArr[t] = partial.better(word[order[t]], matchArr[failArr[t]]);
+            }
+        }
+        return partial;
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        int old = array.length;
+        int[] grown = Arrays.copyOf(array, capacity);
+        Arrays.fill(grown, old, capacity, -1);
+        return grown;
+    }
+
+    /**
+     * Returns whichever of two words should be reported: the longer one, or the later one
+     * in the list if they are the same length. Either may be -1 for no word.
+     */
+    private int better(int a, int b) {
+        if (a < 0) return b;
+        if (b < 0) return a;
+        int lengthA = wordStart.get(a + 1) - wordStart.get(a);
+        int lengthB = wordStart.get(b + 1) - wordStart.get(b);
+        if (lengthA != lengthB) {
+            return lengthA > lengthB ? a : b;
+        }
+        return Math.max(a, b);
+    }
+
+    /**
+     * Returns the child of a state along a symbol, or -1 if there is none.
+     */
+    private int child(int state, int sym) {
+        int lo = firstEdge.get(state);
+        int hi = firstEdge.get(state + 1) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int midSym = edgeSymbol.get(mid);
+            if (midSym < sym) {
+                lo = mid + 1;
+            } else if (midSym > sym) {
+                hi = mid - 1;
+            } else {
+                return mid + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The state to start a scan from.
+     */
+    public static final int START = 0;
+
+    /**
+     * Advances the automaton by one character. Callers that already loop over a
+     * password can use this to check for blocked words in the same pass.
+     *
+     * @param state The current state, START for the first character.
+     * @param c The next character of the input.
+     * @return The new state.
+     */
+    public int step(int state, char c) {
+        int sym = symbol(c);
+        if (sym < 0) {
+            return START;
+        }
+        while (true) {
+            int next = child(state, sym);
+            if (next >= 0) {
+                return next;
+            }
+            if (state == START) {
+                return START;
+            }
+            state = fail.get(state);
+        }
+    }
+
+    /**
+     * Returns the word that ends at a state, or -1 if none does.
+     */
+    public int matchAt(int state) {
+        return match.get(state);
+    }
+
+    /**
+     * Picks the word to report from two matches, as {@link #find(CharSequence)} does.
+     */
+    public int prefer(int a, int b) {
+        return better(a, b);
+    }
+
+    /**
+     * Finds the longest blocked word in an input.
+     *
+     * @param input The text to scan.
+     * @return The number of the word found, for {@link #getWord(int)}, or -1 if none occurs.
+     */
+    public int find(CharSequence input) {
+        int state = START;
+        int found = -1;
+        for (int i = 0; i < input.length(); i++) {
+            state = step(state, input.charAt(i));
+            found = better(match.get(state), found);
+        }
+        return found;
+    }
+
+    /**
+     * Returns a blocked word by its number.
+     */
+    public String getWord(int word) {
+        int start = wordStart.get(word);
+        byte[] b = new byte[wordStart.get(word + 1) - start];
+        wordBytes.get(start, b);
+        return new String(b, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns the number of blocked words.
+     */
+    public int getWordCount() {
+        return wordStart.limit() - 1;
+    }
+
+    /**
+     * Returns the number of automaton states.
+     */
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * Saves the matcher in the binary format read by {@link #load(Path)}.
+     */
+    public void write(Path path) throws IOException {
+        int words = getWordCount();
+        int ints = HEADER_INTS + (stateCount + 1) + stateCount * 2 + (words + 1);
+        int bytes = stateCount + wordBytes.limit();
+        ByteBuffer out = ByteBuffer.allocate(ints * 4 + bytes);
+        out.putInt(MAGIC).putInt(stateCount).putInt(words).putInt(wordBytes.limit());
+        for (int i = 0; i <= stateCount; i++) out.putInt(firstEdge.get(i));
+        for (int i = 0; i < stateCount; i++) out.putInt(fail.get(i));
+        for (int i = 0; i < stateCount; i++) out.putInt(match.get(i));
+        for (int i = 0; i <= words; i++) out.putInt(wordStart.get(i));
+        for (int i = 0; i < stateCount; i++) out.put(edgeSymbol.get(i));
+        for (int i = 0; i < wordBytes.limit(); i++) out.put(wordBytes.get(i));
+        try (OutputStream stream = Files.newOutputStream(path)) {
+            stream.write(out.array());
+        }
+    }
+
+    /**
+     * Loads a matcher saved by {@link #write(Path)}. The file is memory-mapped and
+     * used in place rather than read into the heap.
+     *
+     * @throws IOException if the file cannot be read or is not a blocklist file.
+     */
+    public static BlocklistMatcher load(Path path) throws IOException {
+        ByteBuffer map;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (map.limit() < HEADER_INTS * 4 || map.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a blocklist file");
+        }
+        int states = map.getInt(4);
+        int words = map.getInt(8);
+        int wordByteCount = map.getInt(12);
+        int offset = HEADER_INTS * 4;
+        long expected = offset + 4L * ((states + 1) + states * 2L + (words + 1)) + states + wordByteCount;
+        if (map.limit() != expected) {
+            throw new IOException(path + " is truncated or corrupt");
+        }
+        IntBuffer firstEdge = map.slice(offset, (states + 1) * 4).asIntBuffer();
+        offset += (states + 1) * 4;
+        IntBuffer fail = map.slice(offset, states * 4).asIntBuffer();
+        offset += states * 4;
+        IntBuffer match = map.slice(offset, states * 4).asIntBuffer();
+        offset += states * 4;
+        IntBuffer wordStart = map.slice(offset, (words + 1) * 4).asIntBuffer();
+        offset += (words + 1) * 4;
+        ByteBuffer edgeSymbol = map.slice(offset, states);
+        offset += states;
+        ByteBuffer wordBytes = map.slice(offset, wordByteCount);
+        return new BlocklistMatcher(states, firstEdge, edgeSymbol, fail, match, wordStart, wordBytes);
+    }
+
+    /**
+     * Builds a matcher from a text file with one blocked word per line.
+     */
+    public static BlocklistMatcher compileTextFile(Path path) throws IOException {
+        List<String> words = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.ISO_8859_1)) {
+            words.add(line.trim());
+        }
+        return compile(words);
+    }
+
+    /**
+     * Converts a text word list into the binary format.
+     * Usage: BlocklistMatcher &lt;words.txt&gt; &lt;blocklist.bin&gt;
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BlocklistMatcher <words.txt> <blocklist.bin>");
+            return;
+        }
+        long start = System.nanoTime();
+        BlocklistMatcher matcher = compileTextFile(Path.of(args[0]));
+        matcher.write(Path.of(args[1]));
+        System.out.printf("Wrote %d words, %d states to %s in %d ms%n", matcher.getWordCount(),
+                matcher.getStateCount(), args[1], (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,147 @@
+package application;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An {@link Answers} store that can be shared by several threads.
+ * <p>
+ * It follows the same rules as {@link ConcurrentQuestions}: changes take the write lock
+ * and raise the version, lookups take the read lock, and {@link #listAllAnswers()} hands
+ * out the list built for the current version without locking. Every list returned is an
+ * unmodifiable snapshot of a single version. The Answer objects in a snapshot from
+ * listAllAnswers are shared with other callers, so treat them as read-only.
+ * </p>
+ */
+public class ConcurrentAnswers {
+    private final Answers answers = new Answers();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile long version = 0;
+    private volatile boolean searchReady = false;
+
+    // The list of all answers at the version it was built for
+    private static final class Snapshot {
+        final long version;
+        final List<Answer> answers;
+
+        Snapshot(long version, List<Answer> answers) {
+            this.version = version;
+            this.answers = answers;
+        }
+    }
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    public ConcurrentAnswers() {
+    }
+
+    public void insertAnswer(Answer a) {
+        lock.writeLock().lock();
+        try {
+            answers.insertAnswer(a);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void modifyAnswer(Answer a) {
+        lock.writeLock().lock();
+        try {
+            answers.modifyAnswer(a);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void deleteAnswer(int ansID) {
+        lock.writeLock().lock();
+        try {
+            answers.deleteAnswer(ansID);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of changes made so far.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Answer findAnswerByID(int ansID) {
+        lock.readLock().lock();
+        try {
+            return answers.findAnswerByID(ansID);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every answer in insertion order, as an unmodifiable snapshot of the current
+     * version.
+     */
+    public List<Answer> listAllAnswers() {
+        Snapshot current = snapshot.get();
+        if (current != null && current.version == version) {
+            return current.answers;
+        }
+        lock.readLock().lock();
+        try {
+            current = new Snapshot(version, List.copyOf(answers.listAllAnswers()));
+        } finally {
+            lock.readLock().unlock();
+        }
+        snapshot.set(current);
+        return current.answers;
+    }
+
+    /**
+     * Returns the answers to one question, in insertion order.
+     */
+    public List<Answer> listAnswersForQuestion(int questionID) {
+        lock.readLock().lock();
+        try {
+            return List.copyOf(answers.listAnswersForQuestion(questionID));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return answers.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the answers whose body contains every word of the keyword, ranked best match
+     * first, as {@link Answers#filterAnswers(String)} does.
+     */
+    public List<Answer> filterAnswers(String keyword) {
+        if (!searchReady) {
+            lock.writeLock().lock();
+            try {
+                answers.prepareSearch();
+                searchReady = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        lock.readLock().lock();
+        try {
+            return List.copyOf(answers.filterAnswers(keyword));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package application;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link Questions} store that can be shared by several threads, such as the request
+ * threads of a server.
+ * <p>
+ * Changes take the write lock and raise the version by one, so each version is one
+ * complete insert, change or deletion. Lookups and filters take the read lock and run in
+ * parallel with each other. {@link #listAllQuestions()} takes no lock at all while the
+ * store is unchanged: the list built for the current version is kept and handed to every
+ * caller, and only the first call after a change builds a new one under the read lock.
+ * </p>
+ * <p>
+ * Every list returned is an unmodifiable snapshot. Iterating it never throws
+ * ConcurrentModificationException and never shows changes made after it was taken; it
+ * holds all the questions of a single version and nothing from any other. The Question
+ * objects in a snapshot from listAllQuestions are shared with other callers of the same
+ * version, so treat them as read-only and pass a copy to
+ * {@link #modifyQuestion(Question)}.
+ * </p>
+ */
+public class ConcurrentQuestions {
+    private final Questions questions = new Questions();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile long version = 0;
+    private volatile boolean searchReady = false;
+
+    // The list of all questions at the version it was built for
+    private static final class Snapshot {
+        final long version;
+        final List<Question> questions;
+
+        Snapshot(long version, List<Question> questions) {
+            this.version = version;
+            this.questions = questions;
+        }
+    }
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    public ConcurrentQuestions() {
+    }
+
+    public void insertQuestion(Question q) {
+        lock.writeLock().lock();
+        try {
+            questions.insertQuestion(q);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void modifyQuestion(Question q) {
+        lock.writeLock().lock();
+        try {
+            questions.modifyQuestion(q);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void deleteQuestion(int qID) {
+        lock.writeLock().lock();
+        try {
+            questions.deleteQuestion(qID);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of changes made so far. Two reads that see the same version saw
+     * the same questions.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Question findQuestionByID(int qID) {
+        lock.readLock().lock();
+        try {
+            return questions.findQuestionByID(qID);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every question in insertion order, as an unmodifiable snapshot of the
+     * current version.
+     */
+    public List<Question> listAllQuestions() {
+        Snapshot current = snapshot.get();
+        if (current != null && current.version == version) {
+            return current.questions;
+        }
+        lock.readLock().lock();
+        try {
+            // No change can run while the read lock is held, so the list matches the version
+            current = new Snapshot(version, List.copyOf(questions.listAllQuestions()));
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Racing rebuilders may leave an older snapshot here; the version check skips it
+        snapshot.set(current);
+        return current.questions;
+    }
+
+    /**
+     * Returns the same snapshot as {@link #listAllQuestions()}.
+     */
+    public List<Question> getQList() {
+        return listAllQuestions();
+    }
+
+    /**
+     * Returns the questions posted by one user, in insertion order.
+     */
+    public List<Question> listQuestionsByAuthor(String postedBy) {
+        lock.readLock().lock();
+        try {
+            return List.copyOf(questions.listQuestionsByAuthor(postedBy));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the resolved or the unresolved questions, in insertion order.
+     */
+    public List<Question> listQuestionsByStatus(boolean isResolved) {
+        lock.readLock().lock();
+        try {
+            return List.copyOf(questions.listQuestionsByStatus(isResolved));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return questions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the questions whose body contains every word of the keyword, ranked best
+     * match first, as {@link Questions#searchQuestions(String)} does.
+     */
+    public List<Question> searchQuestions(String keyword) {
+        if (!searchReady) {
+            // The first search builds the text index, which changes the store
+            lock.writeLock().lock();
+            try {
+                questions.prepareSearch();
+                searchReady = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        lock.readLock().lock();
+        try {
+            return List.copyOf(questions.searchQuestions(keyword));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -1,38 +1,76 @@
 package application;
 
-public class EmailRecognizer{
-    // Renamed the method to emailEvaluator to better reflect its purpose
-    public static String emailEvaluator(String email) {
+public class EmailRecognizer implements InputValidator {
+    // Shared by the static emailEvaluator method; the recognizer holds no per-call state
+    private static final EmailRecognizer DEFAULT = new EmailRecognizer();
+
+    /**
+     * Checks an email in one pass over its characters. The first character that is not a
+     * letter, digit, '@' or '.' is reported; otherwise the email must contain a letter,
+     * an '@' and a '.', checked in that order.
+     */
+    @Override
+    public boolean validate(String email, ValidationResult result) {
+        result.reset();
         // Check for null or empty email
         if (email == null || email.isEmpty()) {
-            return "Error: Email cannot be null or empty.";
+            result.fail(ValidationResult.Code.EMPTY, 0);
+            return false;
         }
-        
-        // Validate that the email contains only allowed characters:
-        // Allowed: alphabets, numbers, '@', and '.'
-        if (!email.matches("^[a-zA-Z0-9@.]+$")) {
-            return "Error: Email contains invalid characters. Only alphabets, numbers, '@', and '.' are allowed.";
+
+        boolean letter = false;
+        boolean at = false;
+        boolean dot = false;
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                letter = true;
+            } else if (c == '@') {
+                at = true;
+            } else if (c == '.') {
+                dot = true;
+            } else if (c < '0' || c > '9') {
+                // Allowed: alphabets, numbers, '@', and '.'
+                result.fail(ValidationResult.Code.INVALID_CHARACTER, i);
+                return false;
+            }
         }
-        
-        // Validate that the email contains at least one alphabet.
-        if (!email.matches(".*[a-zA-Z].*")) {
-            return "Error: Email must contain at least one alphabet.";
+
+        if (!letter) {
+            result.fail(ValidationResult.Code.MISSING_LETTER, email.length());
+        } else if (!at) {
+            result.fail(ValidationResult.Code.MISSING_AT, email.length());
+        } else if (!dot) {
+            result.fail(ValidationResult.Code.MISSING_DOT, email.length());
         }
-        
-        // Validate that the email contains the '@' character.
-        if (!email.contains("@")) {
+        return result.isValid();
+    }
+
+    @Override
+    public String describe(ValidationResult result) {
+        switch (result.getCode()) {
+        case EMPTY:
+            return "Error: Email cannot be null or empty.";
+        case INVALID_CHARACTER:
+            return "Error: Email contains invalid characters. Only alphabets, numbers, '@', and '.' are allowed.";
+        case MISSING_LETTER:
+            return "Error: Email must contain at least one alphabet.";
+        case MISSING_AT:
             return "Error: Email must contain '@'.";
-        }
-        
-        // Validate that the email contains the '.' character.
-        if (!email.contains(".")) {
+        case MISSING_DOT:
             return "Error: Email must contain '.'.";
+        default:
+            return "";
         }
-        
-        // If all validations pass, return a valid message or an empty string.
-        return "";
     }
-    
+
+    // Renamed the method to emailEvaluator to better reflect its purpose
+    public static String emailEvaluator(String email) {
+        ValidationResult result = new ValidationResult();
+        DEFAULT.validate(email, result);
+        return DEFAULT.describe(result);
+    }
+
     // Example usage:
     public static void main(String[] args) {
         String[] testEmails = {
@@ -44,7 +82,7 @@ public class EmailRecognizer{
             "@example.com",        // Missing alphabet? (There is no alphabet in '@')
             "userexamplecom"       // Missing '@' and '.'
         };
-        
+
         for (String email : testEmails) {
             System.out.println("Testing: " + email + " -> " + emailEvaluator(email));
         }
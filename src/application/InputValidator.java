@@ -0,0 +1,26 @@
+package application;
+
+/**
+ * A reusable checker for one kind of user input, such as a user name or a password.
+ * <p>
+ * Implementations keep no state between calls, so one instance can be shared by any
+ * number of threads, for example to validate sign-ups in parallel.
+ * </p>
+ */
+public interface InputValidator {
+
+    /**
+     * Checks an input and records the outcome.
+     *
+     * @param input  The text to check; must not be null.
+     * @param result Filled in with the outcome. Any earlier contents are discarded.
+     * @return true if the input is valid.
+     */
+    boolean validate(String input, ValidationResult result);
+
+    /**
+     * Returns the error message for a result produced by this validator, or an empty
+     * string if the input was valid.
+     */
+    String describe(ValidationResult result);
+}
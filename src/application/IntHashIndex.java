@@ -0,0 +1,171 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from int keys to non-negative int values, such as from a question ID to the
+ * position where the question is stored.
+ * <p>
+ * Keys and values live in two int arrays with open addressing and linear probing, so a
+ * lookup touches one or two adjacent array cells and never allocates; a
+ * {@code HashMap<Integer, Integer>} boxes both numbers and follows several pointers per
+ * lookup. Removal shifts later entries of the probe run back instead of leaving
+ * tombstones, so lookups stay short however many entries have been removed. Not safe for
+ * use by several threads.
+ * </p>
+ */
+public class IntHashIndex {
+    /** Returned when a key is not in the map. Values must not be negative. */
+    public static final int NO_VALUE = -1;
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] keys;
+    private int[] values;       // NO_VALUE marks a free cell
+    private int mask;
+    private int size = 0;
+    private int resizeAt;
+
+    public IntHashIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize The number of entries the map should hold without growing.
+     */
+    public IntHashIndex(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Spreads the key bits so that runs of nearby IDs do not fill neighbouring cells.
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the value stored for a key, or NO_VALUE if there is none.
+     */
+    public int get(int key) {
+        int i = hash(key) & mask;
+        while (values[i] != NO_VALUE) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != NO_VALUE;
+    }
+
+    /**
+     * Stores a value for a key.
+     *
+     * @param value A value of zero or more.
+     * @return The previous value, or NO_VALUE if the key was not in the map.
+     */
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must not be negative: " + value);
+        }
+        int i = hash(key) & mask;
+        while (values[i] != NO_VALUE) {
+            if (keys[i] == key) {
+                int previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeAt) {
+            grow();
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @return The value it had, or NO_VALUE if it was not in the map.
+     */
+    public int remove(int key) {
+        int i = hash(key) & mask;
+        while (values[i] != NO_VALUE) {
+            if (keys[i] == key) {
+                int previous = values[i];
+                closeGap(i);
+                size--;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Frees a cell, moving back later entries of its probe run that would otherwise no
+     * longer be found from their home cell.
+     */
+    private void closeGap(int gap) {
+        int j = gap;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == NO_VALUE) {
+                break;
+            }
+            int home = hash(keys[j]) & mask;
+            // The entry may move if the gap lies between its home cell and where it is now
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        values[gap] = NO_VALUE;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != NO_VALUE) {
+                int j = hash(oldKeys[i]) & mask;
+                while (values[j] != NO_VALUE) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, NO_VALUE);
+        size = 0;
+    }
+}
@@ -14,11 +14,19 @@ import javafx.stage.Stage;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+
 /**
- * InvitationPage class represents the page where an admin can generate an invitation code.
- * The invitation code is displayed upon clicking a button.
+ * InvitationPage class represents the page where an admin can generate invitation codes.
+ * One or more codes, with an optional expiration date, are displayed upon clicking a button.
  */
 public class InvitationPage {
+    private static final DateTimeFormatter EXPIRATION_FORMAT = DateTimeFormatter.ofPattern("uuuu/MM/dd")
+            .withResolverStyle(ResolverStyle.STRICT);
 
     /**
      * Displays the Invite Page in the provided primary stage.
@@ -59,6 +67,12 @@ public void show(DatabaseHelper databaseHelper, Stage primaryStage, Scene previo
         expDateField.setPromptText("Enter Expiration Date (YYYY/MM/DD)");
         expDateField.setMaxWidth(250);
 	    //end edits
+
+	    // How many codes to generate at once
+	    Label countLabel = new Label("Number of codes");
+	    Spinner<Integer> countSpinner = new Spinner<>(1, DatabaseHelper.INVITATION_BATCH_MAX, 1);
+	    countSpinner.setEditable(true);
+	    countSpinner.setMaxWidth(250);
 	    
 	    VBox roleSelect = new VBox(10);
 	    layout.setStyle("-fx-padding: 20;");
@@ -80,6 +94,17 @@ public void show(DatabaseHelper databaseHelper, Stage primaryStage, Scene previo
 	    // Label to display the generated invitation code
 	    Label inviteCodeLabel = new Label("");
 	    inviteCodeLabel.setStyle("-fx-font-size: 14px; -fx-font-style: italic;");
+
+	    // Lists the codes of a batch so they can be copied
+	    TextArea codesArea = new TextArea();
+	    codesArea.setEditable(false);
+	    codesArea.setMaxWidth(250);
+	    codesArea.setPrefRowCount(6);
+	    codesArea.setVisible(false);
+	    codesArea.setManaged(false);
+
+	    AsyncDatabase async = new AsyncDatabase(databaseHelper);
+	    BackgroundTasks tasks = new BackgroundTasks();
 	    
 	    showCodeButton.setOnAction(a -> {
 	        // Collect all selected roles
@@ -101,21 +126,52 @@ public void show(DatabaseHelper databaseHelper, Stage primaryStage, Scene previo
 	            return;
 	        }
 	        
-	        // Generate the invitation code using the databaseHelper
-	        String invitationCode = databaseHelper.generateInvitationCodeWithRole(roles);
-	        if (invitationCode != null) {
-	            inviteCodeLabel.setText("Code: " + invitationCode + " (Roles: " + roles + ")");
-	        } else {
+	        // The codes work until the end of the expiration date; a blank date never expires
+	        Timestamp expiresAt = null;
+	        String expDate = expDateField.getText().trim();
+	        if (!expDate.isEmpty()) {
+	            try {
+	                LocalDate date = LocalDate.parse(expDate, EXPIRATION_FORMAT);
+	                if (date.isBefore(LocalDate.now())) {
+	                    new Alert(Alert.AlertType.WARNING, "The expiration date has already passed.").showAndWait();
+	                    return;
+	                }
+	                expiresAt = Timestamp.valueOf(date.plusDays(1).atStartOfDay());
+	            } catch (DateTimeParseException e) {
+	                new Alert(Alert.AlertType.WARNING, "Please enter the expiration date as YYYY/MM/DD.").showAndWait();
+	                return;
+	            }
+	        }
+
+	        // Generate the invitation codes in the background
+	        int count = countSpinner.getValue();
+	        String selected = roles;
+	        Timestamp expiry = expiresAt;
+	        showCodeButton.setDisable(true);
+	        tasks.run("generate", async.supply(db -> db.generateInvitationCodes(selected, count, expiry)), codes -> {
+	            showCodeButton.setDisable(false);
+	            String until = expiry == null ? "" : ", expires after " + expDate;
+	            if (codes.size() == 1) {
+	                inviteCodeLabel.setText("Code: " + codes.get(0) + " (Roles: " + selected + until + ")");
+	            } else {
+	                inviteCodeLabel.setText(codes.size() + " codes (Roles: " + selected + until + ")");
+	            }
+	            codesArea.setText(String.join("\n", codes));
+	            codesArea.setVisible(codes.size() > 1);
+	            codesArea.setManaged(codes.size() > 1);
+	        }, e -> {
+	            showCodeButton.setDisable(false);
 	            Alert alert = new Alert(Alert.AlertType.ERROR, "Failed to generate invitation code.");
 	            alert.showAndWait();
-	        }
+	        });
 	    });
 
         // Back button to return to the previous scene
         Button backButton = new Button("Back");
         backButton.setOnAction(e -> primaryStage.setScene(previousScene));
 
-        layout.getChildren().addAll(userLabel, showCodeButton, inviteCodeLabel, roleSelect, expDateField, backButton);
+        layout.getChildren().addAll(userLabel, showCodeButton, tasks.getIndicator(), inviteCodeLabel, codesArea,
+                roleSelect, expDateField, countLabel, countSpinner, backButton);
         Scene inviteScene = new Scene(layout, 800, 400);
 
         // Set the scene to primary stage
@@ -1,36 +1,90 @@
 package application;
 
 public class NameRecognizer {
-    public static String nameEvaluator(String firstname, String lastname) {
-        // Check for null values (optional but recommended)
+    // Which name a result refers to, reported by ValidationResult.getDetail
+    public static final int FIRST_NAME = 0;
+    public static final int LAST_NAME = 1;
+
+    private static final int MAX_LENGTH = 30;
+
+    // Shared by the static nameEvaluator method; the recognizer holds no per-call state
+    private static final NameRecognizer DEFAULT = new NameRecognizer();
+
+    /**
+     * Checks a first and last name. Each must be at most 30 characters of letters and
+     * spaces; both lengths are checked before the characters, as the messages have always
+     * been reported in that order. The detail of the result says which name failed.
+     *
+     * @return true if both names are valid.
+     */
+    public boolean validate(String firstname, String lastname, ValidationResult result) {
+        result.reset();
+        // Check for null values
         if (firstname == null || lastname == null) {
-            return "Error: First name and Last name cannot be null.";
+            result.fail(ValidationResult.Code.EMPTY, 0);
+            return false;
         }
-        
+
         // Check length constraints
-        if (firstname.length() > 30) {
-            return "Error: First name exceeds 30 characters.";
-        }
-        if (lastname.length() > 30) {
-            return "Error: Last name exceeds 30 characters.";
-        }
-        
-        // Define a regular expression for allowed characters: only alphabets and spaces.
-        String validPattern = "^[a-zA-Z ]+$";
-        
-        // Validate that the first name matches the pattern.
-        if (!firstname.matches(validPattern)) {
-            return "Error: First name contains invalid characters. Only alphabets and spaces are allowed.";
-        }
-        
-        // Validate that the last name matches the pattern.
-        if (!lastname.matches(validPattern)) {
-            return "Error: Last name contains invalid characters. Only alphabets and spaces are allowed.";
-        }
-        
-        // If all validations pass, you can return a success message or simply an empty string.
-        return "";
-        
-        
+        if (firstname.length() > MAX_LENGTH) {
+            return fail(result, ValidationResult.Code.TOO_LONG, MAX_LENGTH, FIRST_NAME);
+        }
+        if (lastname.length() > MAX_LENGTH) {
+            return fail(result, ValidationResult.Code.TOO_LONG, MAX_LENGTH, LAST_NAME);
+        }
+
+        // Only alphabets and spaces, and at least one character
+        int bad = firstInvalid(firstname);
+        if (bad >= 0) {
+            return fail(result, ValidationResult.Code.INVALID_CHARACTER, bad, FIRST_NAME);
+        }
+        bad = firstInvalid(lastname);
+        if (bad >= 0) {
+            return fail(result, ValidationResult.Code.INVALID_CHARACTER, bad, LAST_NAME);
+        }
+        return true;
+    }
+
+    private static boolean fail(ValidationResult result, ValidationResult.Code code, int index, int field) {
+        result.fail(code, index);
+        result.setDetail(field);
+        return false;
+    }
+
+    /**
+     * Returns the index of the first character that is not a letter or space, 0 for an
+     * empty name, or -1 if the name is valid.
+     */
+    private static int firstInvalid(String name) {
+        if (name.isEmpty()) {
+            return 0;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == ' ')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String describe(ValidationResult result) {
+        String field = result.getDetail() == LAST_NAME ? "Last name" : "First name";
+        switch (result.getCode()) {
+        case EMPTY:
+            return "Error: First name and Last name cannot be null.";
+        case TOO_LONG:
+            return "Error: " + field + " exceeds 30 characters.";
+        case INVALID_CHARACTER:
+            return "Error: " + field + " contains invalid characters. Only alphabets and spaces are allowed.";
+        default:
+            return "";
+        }
+    }
+
+    public static String nameEvaluator(String firstname, String lastname) {
+        ValidationResult result = new ValidationResult();
+        DEFAULT.validate(firstname, lastname, result);
+        return DEFAULT.describe(result);
     }
 }
@@ -1,7 +1,10 @@
 package application;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 
-public class PasswordEvaluator {
+public class PasswordEvaluator implements InputValidator {
 	/**
 	 * <p> Title: Directed Graph-translated Password Assessor. </p>
 	 * 
@@ -14,30 +17,83 @@ public class PasswordEvaluator {
 	 * @author Lynn Robert Carter
 	 * 
 	 * @version 0.00		2018-02-22	Initial baseline 
+	 * @version 0.01		2026-10-17	Instance-based engine with a ValidationResult instead of
+	 * 									static state, so passwords can be checked on several
+	 * 									threads at once
+	 * @version 0.02		2026-10-17	Blocked words are found by a BlocklistMatcher in the same
+	 * 									pass as the character checks, and a large list can be
+	 * 									loaded at startup with -Dpassword.blocklist
 	 * 
 	 */
 
 	/**********************************************************************************************
 	 * 
-	 * Result attributes to be used for GUI applications where a detailed error message and a 
-	 * pointer to the character of the error will enhance the user experience.
+	 * The requirements every password must meet, and the default list of blocked words.
 	 * 
 	 */
 
-	public static String passwordErrorMessage = "";		// The error message text
-	public static String passwordInput = "";			// The input being processed
-	public static int passwordIndexofError = -1;		// The index where the error was located
-	public static boolean foundUpperCase = false;
-	public static boolean foundLowerCase = false;
-	public static boolean foundNumericDigit = false;
-	public static boolean foundSpecialChar = false;
-	public static boolean foundLongEnough = false;
-	private static String inputLine = "";				// The input line
-	private static char currentChar;					// The current character in the line
-	private static int currentCharNdx;					// The index of the current character
-	private static boolean running;						// The flag that specifies if the FSM is 
-														// running
-	private static boolean foundBlocked = false;		// The flag that specifies valid special char
+	private static final int REQUIRED = ValidationResult.UPPER_CASE | ValidationResult.LOWER_CASE
+			| ValidationResult.DIGIT | ValidationResult.SPECIAL_CHAR | ValidationResult.LONG_ENOUGH;
+	private static final String[] DEFAULT_BLOCKED = {"1234", "password", "12345678", "qwerty", "secret", "00000000"};
+
+	// Set -Dvalidation.trace=true to print the evaluation of every character to the console
+	private static final boolean TRACE_DEFAULT = Boolean.getBoolean("validation.trace");
+
+	// Set -Dpassword.blocklist=<file> to replace the default blocked words with a word list,
+	// either a text file with one word per line or a .bin file written by BlocklistMatcher
+	private static final BlocklistMatcher DEFAULT_BLOCKLIST = loadDefaultBlocklist();
+
+	// Shared by the static evaluatePassword method; the evaluator holds no per-call state
+	private static final PasswordEvaluator DEFAULT = new PasswordEvaluator();
+
+	private final BlocklistMatcher blocklist;	// Words a password may not contain
+	private final boolean trace;				// Print an execution trace to the console
+
+	/**********
+	 * Creates an evaluator with the default blocked words. Tracing is off unless the
+	 * validation.trace system property is set.
+	 */
+	public PasswordEvaluator() {
+		this(DEFAULT_BLOCKLIST, TRACE_DEFAULT);
+	}
+
+	/**********
+	 * Creates an evaluator with its own blocked words.
+	 * 
+	 * @param blocked	Words a password may not contain
+	 * @param trace		True to print the evaluation of every character to the console
+	 */
+	public PasswordEvaluator(String[] blocked, boolean trace) {
+		this(BlocklistMatcher.compile(Arrays.asList(blocked)), trace);
+	}
+
+	/**********
+	 * Creates an evaluator with a compiled list of blocked words.
+	 * 
+	 * @param blocklist	Words a password may not contain
+	 * @param trace		True to print the evaluation of every character to the console
+	 */
+	public PasswordEvaluator(BlocklistMatcher blocklist, boolean trace) {
+		this.blocklist = blocklist;
+		this.trace = trace;
+	}
+
+	/**********
+	 * Loads the word list named by the password.blocklist system property, or compiles the
+	 * default blocked words if it is not set or cannot be read.
+	 */
+	private static BlocklistMatcher loadDefaultBlocklist() {
+		String file = System.getProperty("password.blocklist");
+		if (file != null && !file.isBlank()) {
+			try {
+				Path path = Path.of(file);
+				return file.endsWith(".bin") ? BlocklistMatcher.load(path) : BlocklistMatcher.compileTextFile(path);
+			} catch (IOException | RuntimeException e) {
+				System.err.println("Could not load password blocklist " + file + ": " + e.getMessage());
+			}
+		}
+		return BlocklistMatcher.compile(Arrays.asList(DEFAULT_BLOCKED));
+	}
 
 	/**********
 	 * This private method display the input line and then on a line under it displays an up arrow
@@ -46,125 +102,137 @@ public class PasswordEvaluator {
 	 * 
 	 * @param input				The input string
 	 * @param currentCharNdx	The location where an error was found
-	 * @return					Two lines, the entire input line followed by a line with an up arrow
 	 */
-	private static void displayInputState() {
+	private static void displayInputState(String input, int currentCharNdx) {
 		// Display the entire input line
-		System.out.println(inputLine);
-		System.out.println(inputLine.substring(0,currentCharNdx) + "?");
-		System.out.println("The password size: " + inputLine.length() + "  |  The currentCharNdx: " + 
-				currentCharNdx + "  |  The currentChar: \"" + currentChar + "\"");
+		System.out.println(input);
+		System.out.println(input.substring(0,currentCharNdx) + "?");
+		System.out.println("The password size: " + input.length() + "  |  The currentCharNdx: " + 
+				currentCharNdx + "  |  The currentChar: \"" + input.charAt(currentCharNdx) + "\"");
 	}
 
 	/**********
 	 * This method is a mechanical transformation of a Directed Graph diagram into a Java
-	 * method.
+	 * method. It keeps all of its state in local variables and the result object, so it may
+	 * run on several threads at once, and it allocates nothing when the password is valid.
 	 * 
 	 * @param input		The input string for directed graph processing
-	 * @return			An output string that is empty if every things is okay or it will be
-	 * 						a string with a help description of the error follow by two lines
-	 * 						that shows the input line follow by a line with an up arrow at the
-	 *						point where the error was found.
+	 * @param result	Receives the error code, the index of the error and the flags found
+	 * @return			True if the password satisfies every condition
 	 */
-	public static String evaluatePassword(String input) {
-		// The following are the local variable used to perform the Directed Graph simulation
-		passwordErrorMessage = "";
-		passwordIndexofError = 0;			// Initialize the IndexofError
-		inputLine = input;					// Save the reference to the input line as a global
-		currentCharNdx = 0;					// The index of the current character
-		
-		if(input.length() <= 0) return "*** Error *** The password is empty!";
-		
-		// The input is not empty, so we can access the first character
-		currentChar = input.charAt(0);		// The current character from the above indexed position
-
-		// The Directed Graph simulation continues until the end of the input is reached or at some 
-		// state the current character does not match any valid transition to a next state
-
-		passwordInput = input;				// Save a copy of the input
-		foundUpperCase = false;				// Reset the Boolean flag
-		foundLowerCase = false;				// Reset the Boolean flag
-		foundNumericDigit = false;			// Reset the Boolean flag
-		foundSpecialChar = false;			// Reset the Boolean flag
-		foundNumericDigit = false;			// Reset the Boolean flag
-		foundLongEnough = false;			// Reset the Boolean flag
-		running = true;						// Start the loop
-		foundBlocked = false;				// Reset the Boolean flag
+	@Override
+	public boolean validate(String input, ValidationResult result) {
+		result.reset();
+		if(input.length() <= 0) {
+			result.fail(ValidationResult.Code.EMPTY, 0);
+			return false;
+		}
 
 		// The Directed Graph simulation continues until the end of the input is reached or at some 
 		// state the current character does not match any valid transition
-		String[] blocked = {"1234", "password", "12345678", "qwerty", "secret", "00000000"};
-		String currentBlocked = "";
-		while (running) {
-			displayInputState();
+		int flags = 0;
+		int matchState = BlocklistMatcher.START;
+		int blockedNdx = -1;
+		for (int currentCharNdx = 0; currentCharNdx < input.length(); currentCharNdx++) {
+			char currentChar = input.charAt(currentCharNdx);
+			if (trace) displayInputState(input, currentCharNdx);
+
 			// The cascading if statement sequentially tries the current character against all of the
 			// valid transitions
 			if (currentChar >= 'A' && currentChar <= 'Z') {
-				System.out.println("Upper case letter found");
-				foundUpperCase = true;
+				if (trace) System.out.println("Upper case letter found");
+				flags |= ValidationResult.UPPER_CASE;
 			} else if (currentChar >= 'a' && currentChar <= 'z') {
-				System.out.println("Lower case letter found");
-				foundLowerCase = true;
+				if (trace) System.out.println("Lower case letter found");
+				flags |= ValidationResult.LOWER_CASE;
 			} else if (currentChar >= '0' && currentChar <= '9') {
-				System.out.println("Digit found");
-				foundNumericDigit = true;
-			} else if ("_".indexOf(currentChar) >= 0) {
-				System.out.println("Underscore Found!");
-				foundSpecialChar = true;
+				if (trace) System.out.println("Digit found");
+				flags |= ValidationResult.DIGIT;
+			} else if (currentChar == '_') {
+				if (trace) System.out.println("Underscore Found!");
+				flags |= ValidationResult.SPECIAL_CHAR;
 			}
 			else {
-				passwordIndexofError = currentCharNdx;
-				return "*** Error *** An invalid character has been found!";
+				result.setFlags(flags);
+				result.fail(ValidationResult.Code.INVALID_CHARACTER, currentCharNdx);
+				return false;
 			}
+			// Advance the blocked word matcher over the same character
+			matchState = blocklist.step(matchState, currentChar);
+			blockedNdx = blocklist.prefer(blocklist.matchAt(matchState), blockedNdx);
 			if (currentCharNdx >= 7) {
-				System.out.println("At least 8 characters found");
-				foundLongEnough = true;
+				if (trace) System.out.println("At least 8 characters found");
+				flags |= ValidationResult.LONG_ENOUGH;
 			}
-			// Checks for blocked characters from the array
-			if (true) {
-				for (int i = 0; i < blocked.length; i++) {
-					if (passwordInput.contains(blocked[i])) {
-						System.out.println("Blocked characters");
-						foundBlocked = true;
-						currentBlocked = blocked[i];
-					}
-				}
-			}
-			
-			// Go to the next character if there is one
-			currentCharNdx++;
-			if (currentCharNdx >= inputLine.length())
-				running = false;
-			else
-				currentChar = input.charAt(currentCharNdx);
-			
-			System.out.println();
+			if (trace) System.out.println();
+		}
+
+		// When several blocked words are present the longest one is reported
+		if (blockedNdx >= 0) {
+			if (trace) System.out.println("Blocked characters");
+			flags |= ValidationResult.BLOCKED;
+			result.setDetail(blockedNdx);
+		}
+		result.setFlags(flags);
+
+		if ((flags & REQUIRED) == REQUIRED && blockedNdx < 0)
+			return true;
+
+		result.fail(ValidationResult.Code.CONDITIONS_NOT_MET, input.length());
+		return false;
+	}
+
+	/**********
+	 * Builds the error message for a result produced by this evaluator.
+	 * 
+	 * @param result	The result of validate
+	 * @return			An empty string if the password is valid, otherwise a description of the error
+	 */
+	@Override
+	public String describe(ValidationResult result) {
+		switch (result.getCode()) {
+		case NONE:
+			return "";
+		case EMPTY:
+			return "*** Error *** The password is empty!";
+		case INVALID_CHARACTER:
+			return "*** Error *** An invalid character has been found!";
+		default:
+			break;
 		}
 
 		String errMessage = "";
-		if (!foundUpperCase)
+		if (!result.has(ValidationResult.UPPER_CASE))
 			errMessage += "Upper case; "; 
 		
-		if (!foundLowerCase)
+		if (!result.has(ValidationResult.LOWER_CASE))
 			errMessage += "Lower case; ";
 		
-		if (!foundNumericDigit)
+		if (!result.has(ValidationResult.DIGIT))
 			errMessage += "Numeric digits; ";
 			
-		if (!foundSpecialChar)
+		if (!result.has(ValidationResult.SPECIAL_CHAR))
 			errMessage += "Underscore; ";
 			
-		if (!foundLongEnough)
+		if (!result.has(ValidationResult.LONG_ENOUGH))
 			errMessage += "At least 8 characters; ";
 		// Displays error message of characters that are blocked
-		if (foundBlocked)
-			errMessage += "Blocked character(s): \"" + currentBlocked + "\"; ";
+		if (result.has(ValidationResult.BLOCKED))
+			errMessage += "Blocked character(s): \"" + blocklist.getWord(result.getDetail()) + "\"; ";
 		
-		if (errMessage == "")
-			return "";
-		
-		passwordIndexofError = currentCharNdx;
 		return errMessage + "conditions were not satisfied";
+	}
 
+	/**********
+	 * Checks a password with the default evaluator.
+	 * 
+	 * @param input		The input string for directed graph processing
+	 * @return			An output string that is empty if every things is okay or it will be
+	 * 						a string with a help description of the error
+	 */
+	public static String evaluatePassword(String input) {
+		ValidationResult result = new ValidationResult();
+		DEFAULT.validate(input, result);
+		return DEFAULT.describe(result);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package application;
+
+/**
+ * Holds the answer counts shown next to a question in the question table.
+ */
+public class QuestionStats {
+    private final int questionID;
+    private final int answerCount;
+    private final int unreadCount;
+
+    /**
+     * Creates the counts for one question.
+     * 
+     * @param questionID The question the counts belong to.
+     * @param answerCount The total number of answers to the question.
+     * @param unreadCount The number of answers the question's author has not seen yet.
+     */
+    public QuestionStats(int questionID, int answerCount, int unreadCount) {
+        this.questionID = questionID;
+        this.answerCount = answerCount;
+        this.unreadCount = unreadCount;
+    }
+
+    public int getQuestionID() {
+        return questionID;
+    }
+
+    public int getAnswerCount() {
+        return answerCount;
+    }
+
+    public int getUnreadCount() {
+        return unreadCount;
+    }
+}
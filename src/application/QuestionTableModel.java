@@ -0,0 +1,271 @@
+package application;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import databasePart1.DatabaseHelper;
+import databasePart1.DatabaseHelper.QuestionSort;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+/**
+ * View model behind the student question table.
+ * It loads questions one page at a time as the user scrolls, together with the answer
+ * counts for the questions on that page, so rendering a row never goes to the database.
+ * Rows only hold a preview of the question body.
+ * <p>
+ * Loading is split in two so the query can run off the JavaFX thread: the fetch methods
+ * only read from the database and may be called on any thread, and {@link #apply(Page)}
+ * updates the table and must be called on the JavaFX thread.
+ * </p>
+ * <p>
+ * After the first page, changes reported by
+ * {@link DatabaseHelper#addChangeListener DatabaseHelper's change events} are applied in
+ * place with {@link #fetchChanges(Collection)} and {@link #apply(Changes)}: only the rows
+ * that changed are replaced, inserted or removed, so the table keeps its scroll position
+ * and selection.
+ * </p>
+ */
+public class QuestionTableModel {
+    public static final int PAGE_SIZE = 50;
+    private static final QuestionStats NO_ANSWERS = new QuestionStats(-1, 0, 0);
+
+    /**
+     * Rows loaded from the database, ready to be shown by {@link #apply(Page)}.
+     */
+    public static class Page {
+        private final List<Question> questions;
+        private final Map<Integer, QuestionStats> stats;
+        private final boolean replace;     // Replace the rows shown instead of appending
+        private final boolean paged;       // More pages may follow
+
+        private Page(List<Question> questions, Map<Integer, QuestionStats> stats, boolean replace, boolean paged) {
+            this.questions = questions;
+            this.stats = stats;
+            this.replace = replace;
+            this.paged = paged;
+        }
+    }
+
+    /**
+     * The current state of some questions, ready to be applied by {@link #apply(Changes)}.
+     */
+    public static class Changes {
+        private final Collection<Integer> questionIDs;
+        private final Map<Integer, Question> questions;     // Missing if the question was deleted
+        private final Map<Integer, QuestionStats> stats;
+
+        private Changes(Collection<Integer> questionIDs, Map<Integer, Question> questions,
+                        Map<Integer, QuestionStats> stats) {
+            this.questionIDs = questionIDs;
+            this.questions = questions;
+            this.stats = stats;
+        }
+    }
+
+    private final DatabaseHelper dbHelper;
+    private final QuestionSort sort;
+    private final ObservableList<Question> questions = FXCollections.observableArrayList();
+    private final Map<Integer, QuestionStats> stats = new HashMap<>();
+    private int lastLoadedId = 0;       // Keyset cursor: the ID of the last row loaded
+    private boolean hasMore = true;
+    private boolean paged = true;       // False while fixed results, such as a search, are shown
+
+    public QuestionTableModel(DatabaseHelper dbHelper) {
+        this(dbHelper, QuestionSort.OLDEST_FIRST);
+    }
+
+    public QuestionTableModel(DatabaseHelper dbHelper, QuestionSort sort) {
+        this.dbHelper = dbHelper;
+        this.sort = sort;
+    }
+
+    /**
+     * Loads the first page. Safe to call on any thread.
+     */
+    public Page fetchFirstPage() throws SQLException {
+        Page page = fetchPage(0);
+        return new Page(page.questions, page.stats, true, true);
+    }
+
+    /**
+     * Loads the page that follows the given question. Safe to call on any thread.
+     *
+     * @param afterId The ID of the last question shown, as returned by {@link #getCursor()}.
+     */
+    public Page fetchPage(int afterId) throws SQLException {
+        List<Question> page = dbHelper.getQuestionsPage(afterId, PAGE_SIZE, sort);
+        Map<Integer, QuestionStats> pageStats = new HashMap<>();
+        if (!page.isEmpty()) {
+            int firstId = page.get(0).getQuestionID();
+            int lastId = page.get(page.size() - 1).getQuestionID();
+            pageStats = dbHelper.getQuestionStats(Math.min(firstId, lastId), Math.max(firstId, lastId));
+        }
+        return new Page(page, pageStats, afterId == 0, true);
+    }
+
+    /**
+     * Loads the answer counts for a fixed list of questions, such as search results.
+     * Safe to call on any thread.
+     *
+     * @param results The questions to show.
+     */
+    public Page fetchResults(List<Question> results) throws SQLException {
+        List<Integer> ids = new ArrayList<>(results.size());
+        for (Question q : results) {
+            ids.add(q.getQuestionID());
+        }
+        // Results are scattered over the IDs, so only the listed ones are counted
+        Map<Integer, QuestionStats> resultStats = dbHelper.getQuestionStats(ids);
+        return new Page(results, resultStats, true, false);
+    }
+
+    /**
+     * Shows a loaded page in the table. Must be called on the JavaFX thread.
+     *
+     * @param page A page returned by one of the fetch methods.
+     */
+    public void apply(Page page) {
+        if (page.replace) {
+            stats.clear();
+            lastLoadedId = 0;
+        }
+        stats.putAll(page.stats);
+        paged = page.paged;
+        if (page.paged) {
+            hasMore = page.questions.size() == PAGE_SIZE;
+            if (!page.questions.isEmpty()) {
+                lastLoadedId = page.questions.get(page.questions.size() - 1).getQuestionID();
+            }
+        } else {
+            hasMore = false;
+        }
+        if (page.replace) {
+            questions.setAll(page.questions);
+        } else {
+            questions.addAll(page.questions);
+        }
+    }
+
+    /**
+     * Loads the current version of changed questions and their answer counts. Safe to
+     * call on any thread.
+     *
+     * @param questionIDs The questions that were inserted, updated or deleted, or whose
+     *                    answers changed.
+     */
+    public Changes fetchChanges(Collection<Integer> questionIDs) throws SQLException {
+        // Two queries however many questions changed, such as after a bulk import
+        Map<Integer, Question> changed = dbHelper.getQuestionPreviews(questionIDs);
+        Map<Integer, QuestionStats> changedStats = dbHelper.getQuestionStats(changed.keySet());
+        return new Changes(new ArrayList<>(questionIDs), changed, changedStats);
+    }
+
+    /**
+     * Applies changed questions to the list without reloading it. Must be called on the
+     * JavaFX thread.
+     * <p>
+     * A changed question that is shown is replaced in its row and a deleted one is
+     * removed. A new question is inserted in sort order if it falls within the pages
+     * loaded so far; otherwise it appears when its page is loaded. Search results only
+     * get updates and deletions.
+     * </p>
+     *
+     * @param changes The result of {@link #fetchChanges(Collection)}.
+     */
+    public void apply(Changes changes) {
+        for (int questionID : changes.questionIDs) {
+            Question question = changes.questions.get(questionID);
+            int index = indexOf(questionID);
+            if (question == null) {
+                stats.remove(questionID);
+                if (index >= 0) {
+                    questions.remove(index);
+                }
+                continue;
+            }
+            QuestionStats questionStats = changes.stats.get(questionID);
+            if (questionStats != null) {
+                stats.put(questionID, questionStats);
+            }
+            if (index >= 0) {
+                questions.set(index, question);
+            } else if (paged && isLoadedRange(questionID)) {
+                questions.add(insertionPoint(questionID), question);
+            }
+        }
+    }
+
+    private int indexOf(int questionID) {
+        for (int i = 0; i < questions.size(); i++) {
+            if (questions.get(i).getQuestionID() == questionID) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if a question belongs to the pages loaded so far, so it would not be
+     * fetched again by the next page.
+     */
+    private boolean isLoadedRange(int questionID) {
+        if (!hasMore) {
+            return true;
+        }
+        return sort == QuestionSort.NEWEST_FIRST ? questionID > lastLoadedId : questionID < lastLoadedId;
+    }
+
+    /**
+     * Returns where a question goes in the list to keep it in ID order.
+     */
+    private int insertionPoint(int questionID) {
+        boolean newestFirst = sort == QuestionSort.NEWEST_FIRST;
+        int low = 0;
+        int high = questions.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int id = questions.get(mid).getQuestionID();
+            if (newestFirst ? id > questionID : id < questionID) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the keyset cursor to pass to {@link #fetchPage(int)} for the next page.
+     */
+    public int getCursor() {
+        return lastLoadedId;
+    }
+
+    /**
+     * Returns true if there may be more questions after the ones loaded so far.
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Returns the list the table is bound to.
+     */
+    public ObservableList<Question> getQuestions() {
+        return questions;
+    }
+
+    /**
+     * Returns the answer counts for a question, or zero counts if it has no answers.
+     *
+     * @param questionID The question to look up.
+     */
+    public QuestionStats getStats(int questionID) {
+        return stats.getOrDefault(questionID, NO_ANSWERS);
+    }
+}
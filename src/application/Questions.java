@@ -1,54 +1,313 @@
 package application;
 
-import java.util.List;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
 
+/**
+ * Holds a set of questions in memory, indexed for constant-time lookups.
+ * <p>
+ * Questions are not kept as objects. Each field is stored in its own array, in the order
+ * the questions were inserted: IDs, accepted answer IDs and message counts as ints,
+ * creation dates as epoch milliseconds, resolved status as one bit, and authors as codes
+ * into a {@link StringDictionary}, so each username is held once however many questions
+ * it posted. With the indexes below, a question takes about 55 bytes besides its body
+ * text, against some 115 for a Question object alone with its Date and its own copy of
+ * the author's name (see QuestionsBenchmark). The full-text index is only built by the
+ * first search.
+ * </p>
+ * <p>
+ * A primitive {@link IntHashIndex} maps each question ID to its position, so finding,
+ * modifying and deleting a question never scans the arrays. The questions of each author
+ * are chained in insertion order, and the resolved bitset answers the status filter
+ * directly. A deleted question leaves a hole that is closed up once holes make up half of
+ * the arrays.
+ * </p>
+ * <p>
+ * Every method that returns questions builds new Question objects from the arrays.
+ * Changing one does not change the stored question until it is passed to
+ * {@link #modifyQuestion(Question)}. Inserting a question whose ID is already stored
+ * replaces it.
+ * </p>
+ */
 public class Questions {
-    private List<Question> qList;
-    
+    private static final int NONE = SlotChains.NONE;
+    private static final int INITIAL_CAPACITY = 16;
+    // Stored for a question without a creation date
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    // One entry per slot, in insertion order; a deleted question leaves a null body until the next compaction
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private String[] bodies = new String[INITIAL_CAPACITY];
+    private int[] authors = new int[INITIAL_CAPACITY];
+    private long[] created = new long[INITIAL_CAPACITY];
+    private int[] acceptedAnswers = new int[INITIAL_CAPACITY];
+    private int[] newMessages = new int[INITIAL_CAPACITY];
+    private BitSet resolved = new BitSet();
+
+    private final StringDictionary authorNames = new StringDictionary();
+    private final SlotChains byAuthor = new SlotChains(INITIAL_CAPACITY);
+    private final IntHashIndex byId = new IntHashIndex();
+    private int used = 0;       // Slots filled so far, including holes
+    private int count = 0;      // Questions stored
+
+    // Full-text index over the question bodies, built by the first search
+    private TextIndex searchIndex;
+
+    // Read-only view of the questions in insertion order
+    private final List<Question> view = new AbstractList<>() {
+        @Override
+        public Question get(int index) {
+            Objects.checkIndex(index, count);
+            compact();
+            return materialize(index);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    };
+
     public Questions() {
-        qList = new ArrayList<>();
     }
-    
+
     public void insertQuestion(Question q) {
         if (q != null && q.checkValidity()) {
-            qList.add(q);
+            int slot = byId.get(q.getQuestionID());
+            if (slot != NONE) {
+                replace(slot, q);
+                return;
+            }
+            if (used == ids.length) {
+                grow();
+            }
+            slot = used++;
+            ids[slot] = q.getQuestionID();
+            authors[slot] = authorNames.encode(q.getPostedBy());
+            byAuthor.link(slot, authors[slot]);
+            store(slot, q);
+            byId.put(q.getQuestionID(), slot);
+            count++;
         }
     }
-    
+
     public void deleteQuestion(int qID) {
-        qList.removeIf(q -> q.getQuestionID() == qID);
+        int slot = byId.remove(qID);
+        if (slot == NONE) {
+            return;
+        }
+        byAuthor.unlink(slot, authors[slot]);
+        resolved.clear(slot);
+        bodies[slot] = null;
+        count--;
+        if (searchIndex != null) {
+            searchIndex.remove(qID);
+        }
+        if (used - count > count) {
+            compact();
+        }
     }
-    
+
+    /**
+     * Replaces a stored question with a new version of it. A question that is not stored,
+     * or not valid, is ignored.
+     */
     public void modifyQuestion(Question q) {
-        if (q != null) {
-            for (int i = 0; i < qList.size(); i++) {
-                if (qList.get(i).getQuestionID() == q.getQuestionID()) {
-                    qList.set(i, q);
-                    break;
-                }
+        if (q != null && q.checkValidity()) {
+            int slot = byId.get(q.getQuestionID());
+            if (slot != NONE) {
+                replace(slot, q);
             }
         }
     }
-    
+
     public Question findQuestionByID(int qID) {
-        return qList.stream()
-                   .filter(q -> q.getQuestionID() == qID)
-                   .findFirst()
-                   .orElse(null);
+        int slot = byId.get(qID);
+        return slot == NONE ? null : materialize(slot);
     }
-    
+
     public List<Question> listAllQuestions() {
-        return new ArrayList<>(qList);
+        List<Question> all = new ArrayList<>(count);
+        for (int i = 0; i < used; i++) {
+            if (bodies[i] != null) {
+                all.add(materialize(i));
+            }
+        }
+        return all;
     }
-    
+
+    /**
+     * Returns the questions posted by one user, in insertion order.
+     */
+    public List<Question> listQuestionsByAuthor(String postedBy) {
+        List<Question> found = new ArrayList<>();
+        int code = authorNames.codeOf(postedBy);
+        for (int slot = code < 0 ? NONE : byAuthor.first(code); slot != NONE; slot = byAuthor.next(slot)) {
+            found.add(materialize(slot));
+        }
+        return found;
+    }
+
+    /**
+     * Returns the resolved or the unresolved questions, in insertion order.
+     */
+    public List<Question> listQuestionsByStatus(boolean isResolved) {
+        List<Question> found = new ArrayList<>();
+        if (isResolved) {
+            for (int slot = resolved.nextSetBit(0); slot >= 0; slot = resolved.nextSetBit(slot + 1)) {
+                found.add(materialize(slot));
+            }
+        } else {
+            for (int slot = resolved.nextClearBit(0); slot < used; slot = resolved.nextClearBit(slot + 1)) {
+                if (bodies[slot] != null) {
+                    found.add(materialize(slot));
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the number of questions stored.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Finds the questions whose body contains every word of the keyword, either whole
+     * or as the start of a longer word. Results are ranked best match first. A blank
+     * keyword matches every question.
+     */
     public List<Question> searchQuestions(String keyword) {
-        return qList.stream()
-                   .filter(q -> q.getBodyText().toLowerCase().contains(keyword.toLowerCase()))
+        if (keyword.isBlank()) {
+            return listAllQuestions();
+        }
+        return searchIndex().search(keyword, Integer.MAX_VALUE).stream()
+                   .map(this::findQuestionByID)
                    .toList();
     }
-    
+
+    /**
+     * Returns the full-text index, building it the first time. Until then a question
+     * costs nothing beyond its fields, which matters when the questions are only listed.
+     */
+    private TextIndex searchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new TextIndex();
+            for (int slot = 0; slot < used; slot++) {
+                if (bodies[slot] != null) {
+                    searchIndex.put(ids[slot], bodies[slot]);
+                }
+            }
+        }
+        return searchIndex;
+    }
+
+    /**
+     * Builds the full-text index now if no search has yet, so that later searches only
+     * read it.
+     */
+    void prepareSearch() {
+        searchIndex();
+    }
+
+    /**
+     * Returns a read-only view of the questions in insertion order. It reflects later
+     * changes.
+     */
     public List<Question> getQList() {
-        return qList;
+        return view;
+    }
+
+    /**
+     * Builds a Question from the fields stored in a slot.
+     */
+    private Question materialize(int slot) {
+        long millis = created[slot];
+        Question q = new Question(ids[slot], bodies[slot], authorNames.decode(authors[slot]),
+                                  millis == NO_DATE ? null : new Date(millis));
+        q.setResolved(resolved.get(slot));
+        q.setAcceptedAnsID(acceptedAnswers[slot]);
+        q.setNewMessagesCount(newMessages[slot]);
+        return q;
+    }
+
+    /**
+     * Writes the fields of a question that are not indexed by position into a slot.
+     */
+    private void store(int slot, Question q) {
+        Date date = q.getDateCreated();
+        bodies[slot] = q.getBodyText();
+        created[slot] = date == null ? NO_DATE : date.getTime();
+        acceptedAnswers[slot] = q.getAcceptedAnsID();
+        newMessages[slot] = q.getNewMessagesCount();
+        resolved.set(slot, q.isResolved());
+        if (searchIndex != null) {
+            searchIndex.put(q.getQuestionID(), q.getBodyText());
+        }
+    }
+
+    /**
+     * Stores a new version of the question in a slot, moving it to another author's chain
+     * if its author changed.
+     */
+    private void replace(int slot, Question q) {
+        int author = authorNames.encode(q.getPostedBy());
+        if (authors[slot] != author) {
+            byAuthor.unlink(slot, authors[slot]);
+            authors[slot] = author;
+            byAuthor.link(slot, author);
+        }
+        store(slot, q);
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        bodies = Arrays.copyOf(bodies, capacity);
+        authors = Arrays.copyOf(authors, capacity);
+        created = Arrays.copyOf(created, capacity);
+        acceptedAnswers = Arrays.copyOf(acceptedAnswers, capacity);
+        newMessages = Arrays.copyOf(newMessages, capacity);
+        byAuthor.grow(capacity);
+    }
+
+    /**
+     * Closes the holes left by deleted questions and rebuilds the indexes on the new
+     * positions. Runs in time proportional to the number of slots, and at most once per
+     * as many deletions as there are questions left.
+     */
+    private void compact() {
+        if (used == count) {
+            return;
+        }
+        BitSet moved = new BitSet(count);
+        int to = 0;
+        for (int from = 0; from < used; from++) {
+            if (bodies[from] != null) {
+                ids[to] = ids[from];
+                bodies[to] = bodies[from];
+                authors[to] = authors[from];
+                created[to] = created[from];
+                acceptedAnswers[to] = acceptedAnswers[from];
+                newMessages[to] = newMessages[from];
+                moved.set(to, resolved.get(from));
+                to++;
+            }
+        }
+        Arrays.fill(bodies, to, used, null);
+        used = to;
+        resolved = moved;
+        byAuthor.clear();
+        for (int slot = 0; slot < used; slot++) {
+            byAuthor.link(slot, authors[slot]);
+            byId.put(ids[slot], slot);
+        }
     }
 }
@@ -99,20 +99,20 @@ public class SetupAccountPage {
             }
             
             try {
-                if (!databaseHelper.doesUserExist(userName)) {
-                    // Get the role associated with the invitation code
-                    String role = databaseHelper.validateInvitationCodeAndGetRole(code);
-                    if (role != null) {
-                        // Create user with the role from the invitation code
-                        User user = new User(userName, password, role, firstName, lastName, email);
-                        databaseHelper.register(user);
+                // Redeem the code and create the user with its roles in one transaction
+                RegistrationResult result = databaseHelper.registerWithInvitation(code, userName, password,
+                        firstName, lastName, email);
+                switch (result.getStatus()) {
+                    case SUCCESS:
                         // After a successful setup, navigate to WelcomeLoginPage.
-                        new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
-                    } else {
+                        new WelcomeLoginPage(databaseHelper).show(primaryStage, result.getUser());
+                        break;
+                    case NAME_TAKEN:
+                        errorLabel.setText("This username is taken! Please use another.");
+                        break;
+                    default:
                         errorLabel.setText("Please enter a valid invitation code");
-                    }
-                } else {
-                    errorLabel.setText("This username is taken! Please use another.");
+                        break;
                 }
             } catch (SQLException e) {
                 System.err.println("Database error: " + e.getMessage());
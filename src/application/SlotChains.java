@@ -0,0 +1,105 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * Groups the slots of an array-backed repository by an int key, such as the answers of
+ * each question or the questions of each author.
+ * <p>
+ * The slots with the same key form a doubly linked chain in slot order, stored in two
+ * int arrays parallel to the repository's own, and an {@link IntHashIndex} pair maps each
+ * key to the two ends of its chain. Listing a key's slots walks only that chain, and
+ * linking or unlinking a slot takes constant time when it is the newest of its key.
+ * The key of each slot is kept by the caller, which passes it back to unlink the slot.
+ * </p>
+ */
+class SlotChains {
+    static final int NONE = -1;
+
+    private int[] next;
+    private int[] prev;
+    private final IntHashIndex first = new IntHashIndex();
+    private final IntHashIndex last = new IntHashIndex();
+
+    SlotChains(int capacity) {
+        next = new int[capacity];
+        prev = new int[capacity];
+    }
+
+    /**
+     * Makes room for slots below the given capacity.
+     */
+    void grow(int capacity) {
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+    }
+
+    /**
+     * Returns the first slot with a key, or NONE.
+     */
+    int first(int key) {
+        return first.get(key);
+    }
+
+    /**
+     * Returns the slot after this one in its chain, or NONE.
+     */
+    int next(int slot) {
+        return next[slot];
+    }
+
+    /**
+     * Adds a slot to its key's chain, keeping the chain in slot order.
+     */
+    void link(int slot, int key) {
+        // New slots go at the end; only a changed key needs the walk back
+        int before = last.get(key);
+        while (before != NONE && before > slot) {
+            before = prev[before];
+        }
+        int after = before == NONE ? first.get(key) : next[before];
+        prev[slot] = before;
+        next[slot] = after;
+        if (before == NONE) {
+            first.put(key, slot);
+        } else {
+            next[before] = slot;
+        }
+        if (after == NONE) {
+            last.put(key, slot);
+        } else {
+            prev[after] = slot;
+        }
+    }
+
+    /**
+     * Removes a slot from the chain of the key it was linked under.
+     */
+    void unlink(int slot, int key) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NONE && after == NONE) {
+            first.remove(key);
+            last.remove(key);
+            return;
+        }
+        if (before == NONE) {
+            first.put(key, after);
+        } else {
+            next[before] = after;
+        }
+        if (after == NONE) {
+            last.put(key, before);
+        } else {
+            prev[after] = before;
+        }
+    }
+
+    /**
+     * Forgets every chain, before the slots are linked again at new positions.
+     */
+    void clear() {
+        first.clear();
+        last.clear();
+    }
+}
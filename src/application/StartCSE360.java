@@ -31,6 +31,14 @@ public class StartCSE360 extends Application {
         	System.out.println(e.getMessage());
         }
     }
+
+	/**
+	 * Closes the shared database connection pool when the application exits.
+	 */
+	@Override
+	public void stop() {
+		DatabaseHelper.shutdownPool();
+	}
 	
 
 }
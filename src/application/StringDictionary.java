@@ -0,0 +1,62 @@
+package application;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes strings that repeat many times, such as usernames, as small ints.
+ * <p>
+ * Each distinct string is stored once and given the next code, starting at 0, so a
+ * column of codes takes four bytes per row instead of a reference to its own copy of the
+ * string. Codes are never reused: a course has a few hundred users, and keeping a name
+ * after its last row is gone costs less than tracking how many rows use it. Not safe for
+ * use by several threads.
+ * </p>
+ */
+public class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] strings = new String[16];
+
+    public StringDictionary() {
+    }
+
+    /**
+     * Returns the code of a string, giving it a new code the first time it is seen.
+     */
+    public int encode(String s) {
+        Integer code = codes.get(s);
+        if (code != null) {
+            return code;
+        }
+        int next = codes.size();
+        if (next == strings.length) {
+            strings = Arrays.copyOf(strings, next * 2);
+        }
+        strings[next] = s;
+        codes.put(s, next);
+        return next;
+    }
+
+    /**
+     * Returns the code of a string, or -1 if it has never been encoded.
+     */
+    public int codeOf(String s) {
+        Integer code = codes.get(s);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the string a code stands for.
+     */
+    public String decode(int code) {
+        return strings[code];
+    }
+
+    /**
+     * Returns the number of distinct strings encoded.
+     */
+    public int size() {
+        return codes.size();
+    }
+}
@@ -1,8 +1,11 @@
 package application;
 
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
@@ -15,13 +18,19 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
+import databasePart1.AsyncDatabase;
+import databasePart1.ChangeEvent;
 import databasePart1.DatabaseHelper;
 
 /**
@@ -29,13 +38,33 @@ import databasePart1.DatabaseHelper;
  * Students can ask questions, provide answers, and track their interactions.
  */
 public class StudentHomePage {
+    // Most questions shown for one search
+    private static final int SEARCH_RESULT_LIMIT = 200;
+
+    // Keys of background requests that replace earlier requests of the same kind
+    private static final String LIST_REQUEST = "questions";
+    private static final String PAGE_REQUEST = "page";
+    private static final String SELECTION_REQUEST = "selection";
+    private static final String INBOX_REQUEST = "inbox";
+    private static final String ANSWERS_REQUEST = "answers";
+
     private DatabaseHelper dbHelper;
+    private QuestionTableModel tableModel;
+    // Database calls run in the background; their results are applied on the FX thread
+    private final AsyncDatabase async;
+    private final BackgroundTasks tasks = new BackgroundTasks();
+
+    // Questions changed since the table was last updated, and whether their rows are being loaded
+    private final Set<Integer> pendingQuestionChanges = new LinkedHashSet<>();
+    private boolean loadingQuestionChanges = false;
 
     /**
      * Initializes the StudentHomePage with a database connection.
      */
     public StudentHomePage() {
         this.dbHelper = new DatabaseHelper();
+        this.tableModel = new QuestionTableModel(dbHelper);
+        this.async = new AsyncDatabase(dbHelper);
         try {
             dbHelper.connectToDatabase();
         } catch (SQLException e) {
@@ -102,24 +131,24 @@ public class StudentHomePage {
         statusColumn.setCellValueFactory(cellData ->
             new SimpleStringProperty(cellData.getValue().isResolved() ? "Resolved" : "Unresolved"));
 
+        // Answer counts come from the table model, which loads them for every question at once
+        TableColumn<Question, String> answersColumn = new TableColumn<>("Answers");
+        answersColumn.setCellValueFactory(cellData ->
+            new SimpleStringProperty(String.valueOf(
+                tableModel.getStats(cellData.getValue().getQuestionID()).getAnswerCount())));
+
         TableColumn<Question, String> unreadColumn = new TableColumn<>("Unread Answers");
         unreadColumn.setCellValueFactory(cellData -> {
-            try {
-                // Get total number of answers for this question
-                List<Answer> answers = dbHelper.getAnswersForQuestion(cellData.getValue().getQuestionID());
-                int unreadCount = cellData.getValue().getNewMessagesCount();
-                return new SimpleStringProperty(unreadCount > 0 ? String.valueOf(unreadCount) : "");
-            } catch (SQLException e) {
-                e.printStackTrace();
-                return new SimpleStringProperty("");
-            }
+            int unreadCount = tableModel.getStats(cellData.getValue().getQuestionID()).getUnreadCount();
+            return new SimpleStringProperty(unreadCount > 0 ? String.valueOf(unreadCount) : "");
         });
 
         questionTable.getColumns().addAll(idColumn, bodyColumn, postedByColumn, dateColumn, 
-                                        statusColumn, unreadColumn);
+                                        statusColumn, answersColumn, unreadColumn);
 
-        // Initial load of questions
+        // Initial load of questions; further pages are loaded as the user scrolls
         refreshQuestionTable(questionTable);
+        installLazyLoading(questionTable);
 
         // Buttons for question management
         Button askQuestionButton = new Button("Ask Question");
@@ -134,7 +163,7 @@ public class StudentHomePage {
 
         HBox buttonBox = new HBox(10);
         buttonBox.setStyle("-fx-alignment: center;");
-        buttonBox.getChildren().addAll(askQuestionButton, viewAnswersButton, searchQuestion, updateQuestionButton, deleteButton, feedbackButton, inboxButton, replyChainButton);
+        buttonBox.getChildren().addAll(askQuestionButton, viewAnswersButton, searchQuestion, updateQuestionButton, deleteButton, feedbackButton, inboxButton, replyChainButton, tasks.getIndicator());
 
         // Ask Question button action
         askQuestionButton.setOnAction(e -> {
@@ -144,50 +173,33 @@ public class StudentHomePage {
             dialog.setContentText("Question:");
 
             dialog.showAndWait().ifPresent(questionText -> {
-                try {
-                    // Get the current max question ID from the database
-                    List<Question> allQuestions = dbHelper.getAllQuestions();
-                    int newId = 1;
-                    if (!allQuestions.isEmpty()) {
-                        newId = allQuestions.stream()
-                                          .mapToInt(Question::getQuestionID)
-                                          .max()
-                                          .getAsInt() + 1;
-                    }
-
-                    Question newQuestion = new Question(
-                        newId,
-                        questionText,
-                        user.getUserName(),
-                        new Date()
-                    );
-
-                    dbHelper.insertQuestion(newQuestion);
-                    refreshQuestionTable(questionTable);
-                } catch (SQLException ex) {
-                    showAlert("Error saving question: " + ex.getMessage(), Alert.AlertType.ERROR);
-                }
+                // An ID of 0 lets the database generate the question ID
+                Question newQuestion = new Question(
+                    0,
+                    questionText,
+                    user.getUserName(),
+                    new Date()
+                );
+
+                // The table gets the new row from the change event
+                tasks.run(null, async.run(db -> db.insertQuestion(newQuestion)),
+                    done -> { },
+                    ex -> showAlert("Error saving question: " + ex.getMessage(), Alert.AlertType.ERROR));
             });
         });
 
         // View Answers button action
         viewAnswersButton.setOnAction(e -> {
-            Question selectedQuestion = questionTable.getSelectionModel().getSelectedItem();
-            if (selectedQuestion != null) {
-                try {
-                    // Reset unread count when viewing answers
-                    if (selectedQuestion.getNewMessagesCount() > 0) {
-                        selectedQuestion.setNewMessagesCount(0);
-                        dbHelper.updateQuestion(selectedQuestion);
-                        refreshQuestionTable(questionTable);
-                    }
-                    showAnswersDialog(selectedQuestion, user, questionTable);
-                } catch (SQLException ex) {
-                    showAlert("Error updating unread count: " + ex.getMessage(), Alert.AlertType.ERROR);
+            withSelectedQuestion(questionTable, "Please select a question first.", selectedQuestion -> {
+                // Reset unread count when viewing answers
+                if (selectedQuestion.getNewMessagesCount() > 0) {
+                    selectedQuestion.setNewMessagesCount(0);
+                    tasks.run(null, async.run(db -> db.updateQuestion(selectedQuestion)),
+                        done -> { },
+                        ex -> showAlert("Error updating unread count: " + ex.getMessage(), Alert.AlertType.ERROR));
                 }
-            } else {
-                showAlert("Please select a question first.", Alert.AlertType.WARNING);
-            }
+                showAnswersDialog(selectedQuestion, user);
+            });
         });
 
         // Search question button action
@@ -198,22 +210,22 @@ public class StudentHomePage {
             dialog.setContentText("Keyword:");
 
             dialog.showAndWait().ifPresent(keyword -> {
-                try {
-                    List<Question> allQuestions = dbHelper.getAllQuestions();
-                    List<Question> filteredQuestions = allQuestions.stream()
-                        .filter(q -> q.getBodyText().toLowerCase().contains(keyword.toLowerCase()))
-                        .toList();
-                    questionTable.setItems(FXCollections.observableArrayList(filteredQuestions));
-                } catch (SQLException ex) {
-                    showAlert("Error searching questions: " + ex.getMessage(), Alert.AlertType.ERROR);
+                if (keyword.isBlank()) {
+                    refreshQuestionTable(questionTable);
+                    return;
                 }
+                // Replaces any listing or search still running
+                tasks.cancel(PAGE_REQUEST);
+                tasks.run(LIST_REQUEST,
+                    async.supply(db -> tableModel.fetchResults(db.searchQuestions(keyword, SEARCH_RESULT_LIMIT))),
+                    tableModel::apply,
+                    ex -> showAlert("Error searching questions: " + ex.getMessage(), Alert.AlertType.ERROR));
             });
         });
 
         // Update Question button action
         updateQuestionButton.setOnAction(e -> {
-            Question selectedQuestion = questionTable.getSelectionModel().getSelectedItem();
-            if (selectedQuestion != null) {
+            withSelectedQuestion(questionTable, "Please select a question to update.", selectedQuestion -> {
                 if (selectedQuestion.getPostedBy().equals(user.getUserName())) {
                     TextInputDialog updateDialog = new TextInputDialog(selectedQuestion.getBodyText());
                     updateDialog.setTitle("Update Question");
@@ -221,20 +233,15 @@ public class StudentHomePage {
                     updateDialog.setContentText("Question:");
 
                     updateDialog.showAndWait().ifPresent(updatedText -> {
-                        try {
-                            selectedQuestion.setBodyText(updatedText);
-                            dbHelper.updateQuestion(selectedQuestion);
-                            refreshQuestionTable(questionTable);
-                        } catch (SQLException ex) {
-                            showAlert("Error updating question: " + ex.getMessage(), Alert.AlertType.ERROR);
-                        }
+                        selectedQuestion.setBodyText(updatedText);
+                        tasks.run(null, async.run(db -> db.updateQuestion(selectedQuestion)),
+                            done -> { },
+                            ex -> showAlert("Error updating question: " + ex.getMessage(), Alert.AlertType.ERROR));
                     });
                 } else {
                     showAlert("You can only update your own questions.", Alert.AlertType.WARNING);
                 }
-            } else {
-                showAlert("Please select a question to update.", Alert.AlertType.WARNING);
-            }
+            });
         });
 
         // Delete button action
@@ -248,12 +255,9 @@ public class StudentHomePage {
                     confirmation.showAndWait();
                     
                     if (confirmation.getResult() == ButtonType.YES) {
-                        try {
-                            dbHelper.deleteQuestion(selectedQuestion.getQuestionID());
-                            refreshQuestionTable(questionTable);
-                        } catch (SQLException ex) {
-                            showAlert("Error deleting question: " + ex.getMessage(), Alert.AlertType.ERROR);
-                        }
+                        tasks.run(null, async.run(db -> db.deleteQuestion(selectedQuestion.getQuestionID())),
+                            done -> { },
+                            ex -> showAlert("Error deleting question: " + ex.getMessage(), Alert.AlertType.ERROR));
                     }
                 } else {
                     showAlert("You can only delete your own questions.", Alert.AlertType.WARNING);
@@ -264,9 +268,7 @@ public class StudentHomePage {
         });
 
         feedbackButton.setOnAction(e -> {
-            Question selectedQuestion = questionTable.getSelectionModel().getSelectedItem();
-            
-            if (selectedQuestion != null) {
+            withSelectedQuestion(questionTable, "Please select a question first to give feedback.", selectedQuestion -> {
                 // Get the username of the person who posted the selected question
                 String questionOwner = selectedQuestion.getPostedBy();
 
@@ -284,28 +286,21 @@ public class StudentHomePage {
 
                 feedbackDialog.showAndWait().ifPresent(feedbackText -> {
                     if (!feedbackText.trim().isEmpty()) {
-                        try {
-                            // Insert feedback into the database with question ID
-                            dbHelper.insertFeedback(selectedQuestion.getQuestionID(), questionOwner, user.getUserName(), feedbackText);
-                            showAlert("Feedback sent successfully!", Alert.AlertType.INFORMATION);
-                        } catch (SQLException ex) {
-                            showAlert("Error saving feedback: " + ex.getMessage(), Alert.AlertType.ERROR);
-                        }
+                        // Insert feedback into the database with question ID
+                        tasks.run(null,
+                            async.run(db -> db.insertFeedback(selectedQuestion.getQuestionID(), questionOwner, user.getUserName(), feedbackText)),
+                            done -> showAlert("Feedback sent successfully!", Alert.AlertType.INFORMATION),
+                            ex -> showAlert("Error saving feedback: " + ex.getMessage(), Alert.AlertType.ERROR));
                     } else {
                         showAlert("Feedback cannot be empty!", Alert.AlertType.WARNING);
                     }
                 });
-
-            } else {
-                showAlert("Please select a question first to give feedback.", Alert.AlertType.WARNING);
-            }
+            });
         });
 
         // Button to open the Inbox
         inboxButton.setOnAction(e -> {
-            try {
-                List<String[]> feedbackList = dbHelper.getFeedbackForUser(user.getUserName());
-
+            tasks.run(INBOX_REQUEST, async.supply(db -> db.getFeedbackForUser(user.getUserName())), feedbackList -> {
                 if (feedbackList.isEmpty()) {
                     showAlert("Your inbox is empty.", Alert.AlertType.INFORMATION);
                     return;
@@ -367,16 +362,13 @@ public class StudentHomePage {
 
                                 replyDialog.showAndWait().ifPresent(replyText -> {
                                     if (!replyText.trim().isEmpty()) {
-                                        try {
-                                            int parentID = Integer.parseInt(selectedFeedback[2]);  // Get feedback ID
-                                            String sentTo = selectedFeedback[5];  // The original sender of the feedback
-
-                                            // insertReply function to store reply
-                                            dbHelper.insertReply(parentID, sentTo, user.getUserName(), replyText);
-                                            showAlert("Reply sent successfully!", Alert.AlertType.INFORMATION);
-                                        } catch (SQLException ex) {
-                                            showAlert("Error saving reply: " + ex.getMessage(), Alert.AlertType.ERROR);
-                                        }
+                                        int parentID = Integer.parseInt(selectedFeedback[2]);  // Get feedback ID
+                                        String sentTo = selectedFeedback[5];  // The original sender of the feedback
+
+                                        // insertReply function to store reply
+                                        tasks.run(null, async.run(db -> db.insertReply(parentID, sentTo, user.getUserName(), replyText)),
+                                            done -> showAlert("Reply sent successfully!", Alert.AlertType.INFORMATION),
+                                            ex -> showAlert("Error saving reply: " + ex.getMessage(), Alert.AlertType.ERROR));
                                     } else {
                                         showAlert("Reply cannot be empty!", Alert.AlertType.WARNING);
                                     }
@@ -402,16 +394,31 @@ public class StudentHomePage {
 
                 inboxTable.getItems().addAll(feedbackList);
 
+                // New feedback for this user is added at the top while the inbox is open, and
+                // entries for deleted questions are removed
+                Consumer<ChangeEvent> inboxChanges = event -> Platform.runLater(() -> {
+                    if (event.getEntity() == ChangeEvent.Entity.FEEDBACK && event.getOp() == ChangeEvent.Op.INSERT
+                            && user.getUserName().equals(event.getUserName())) {
+                        tasks.run(null, async.supply(db -> db.getFeedbackByID(event.getId())), row -> {
+                            if (row != null) {
+                                inboxTable.getItems().add(0, row);
+                            }
+                        }, ex -> showAlert("Error fetching feedback: " + ex.getMessage(), Alert.AlertType.ERROR));
+                    } else if (event.getEntity() == ChangeEvent.Entity.QUESTION && event.getOp() == ChangeEvent.Op.DELETE) {
+                        String questionID = String.valueOf(event.getQuestionID());
+                        inboxTable.getItems().removeIf(row -> row[1].equals(questionID));
+                    }
+                });
+                DatabaseHelper.addChangeListener(inboxChanges);
+                inboxStage.setOnHidden(event -> DatabaseHelper.removeChangeListener(inboxChanges));
+
                 VBox newLayout = new VBox(10, inboxTable);
                 newLayout.setStyle("-fx-padding: 20;");
                 Scene scene = new Scene(newLayout, 1400, 500);
 
                 inboxStage.setScene(scene);
                 inboxStage.show();
-
-            } catch (SQLException ex) {
-                showAlert("Error fetching feedback: " + ex.getMessage(), Alert.AlertType.ERROR);
-            }
+            }, ex -> showAlert("Error fetching feedback: " + ex.getMessage(), Alert.AlertType.ERROR));
         });
 
 
@@ -434,6 +441,22 @@ public class StudentHomePage {
         layout.getChildren().addAll(userLabel, questionTable, buttonBox, backButton);
 
         Scene userScene = new Scene(layout, 800, 400);
+
+        // Rows are updated in place as questions and answers change, in this process or any
+        // other using the database, until the page is left
+        Consumer<ChangeEvent> questionChanges = event -> Platform.runLater(() -> {
+            if (event.getEntity() == ChangeEvent.Entity.QUESTION || event.getEntity() == ChangeEvent.Entity.ANSWER) {
+                pendingQuestionChanges.add(event.getQuestionID());
+                loadQuestionChanges();
+            }
+        });
+        DatabaseHelper.addChangeListener(questionChanges);
+        userScene.windowProperty().addListener((obs, oldWindow, window) -> {
+            if (window == null) {
+                DatabaseHelper.removeChangeListener(questionChanges);
+            }
+        });
+
         primaryStage.setScene(userScene);
         primaryStage.setTitle("Student Page");
     }
@@ -443,9 +466,8 @@ public class StudentHomePage {
      * 
      * @param question The question whose answers are being displayed.
      * @param user The current user viewing the answers.
-     * @param questionTable The main question table to refresh after updates.
      */
-    private void showAnswersDialog(Question question, User user, TableView<Question> questionTable) {
+    private void showAnswersDialog(Question question, User user) {
         Stage dialogStage = new Stage();
         VBox dialogLayout = new VBox(10);
         dialogLayout.setStyle("-fx-padding: 20;");
@@ -487,13 +509,50 @@ public class StudentHomePage {
         acceptedColumn.setPrefWidth(100);
 
         answerTable.getColumns().addAll(answerColumn, answeredByColumn, dateColumn, acceptedColumn);
-        
-        try {
-            List<Answer> allAnswers = dbHelper.getAnswersForQuestion(question.getQuestionID());
-            answerTable.setItems(FXCollections.observableArrayList(allAnswers));
-        } catch (SQLException ex) {
-            showAlert("Error loading answers: " + ex.getMessage(), Alert.AlertType.ERROR);
-        }
+
+        // The dialog has its own requests and spinner; a new listing replaces one still loading
+        BackgroundTasks dialogTasks = new BackgroundTasks();
+        boolean[] searching = {false};
+        Consumer<String> loadAnswers = keyword -> dialogTasks.run(ANSWERS_REQUEST,
+            async.supply(db -> keyword.isBlank()
+                ? db.getAnswersForQuestion(question.getQuestionID())
+                : db.searchAnswers(question.getQuestionID(), keyword)),
+            answers -> {
+                searching[0] = !keyword.isBlank();
+                answerTable.setItems(FXCollections.observableArrayList(answers));
+            },
+            ex -> showAlert("Error loading answers: " + ex.getMessage(), Alert.AlertType.ERROR));
+        loadAnswers.accept("");
+
+        // Answers to this question are updated in place while the dialog is open; new
+        // answers are not added to search results
+        Consumer<ChangeEvent> answerChanges = event -> Platform.runLater(() -> {
+            if (event.getEntity() != ChangeEvent.Entity.ANSWER || event.getQuestionID() != question.getQuestionID()) {
+                return;
+            }
+            int answerID = event.getId();
+            if (event.getOp() == ChangeEvent.Op.DELETE) {
+                answerTable.getItems().removeIf(a -> a.getAnsID() == answerID);
+                return;
+            }
+            dialogTasks.run(null, async.supply(db -> db.getAnswerByID(answerID)), changed -> {
+                List<Answer> items = answerTable.getItems();
+                for (int i = 0; i < items.size(); i++) {
+                    if (items.get(i).getAnsID() == answerID) {
+                        if (changed != null) {
+                            items.set(i, changed);
+                        } else {
+                            items.remove(i);
+                        }
+                        return;
+                    }
+                }
+                if (changed != null && !searching[0]) {
+                    items.add(changed);
+                }
+            }, ex -> showAlert("Error loading answers: " + ex.getMessage(), Alert.AlertType.ERROR));
+        });
+        DatabaseHelper.addChangeListener(answerChanges);
 
         // Button container for answer management
         HBox buttonBox = new HBox(10);
@@ -508,31 +567,38 @@ public class StudentHomePage {
         // Only show accept button if user is question owner and question is not resolved
         acceptAnswerButton.setVisible(question.getPostedBy().equals(user.getUserName()) && !question.isResolved());
 
-        buttonBox.getChildren().addAll(addAnswerButton, updateAnswerButton, deleteAnswerButton, acceptAnswerButton, searchAnswerButton);
+        buttonBox.getChildren().addAll(addAnswerButton, updateAnswerButton, deleteAnswerButton, acceptAnswerButton, searchAnswerButton, dialogTasks.getIndicator());
 
         // Accept Answer button action
         acceptAnswerButton.setOnAction(e -> {
             Answer selectedAnswer = answerTable.getSelectionModel().getSelectedItem();
             if (selectedAnswer != null) {
-                try {
-                    // Update question with accepted answer ID and resolved status
-                    question.setAcceptedAnsID(selectedAnswer.getAnsID());
+                // Update question with accepted answer ID and resolved status. The question is
+                // read again in the transaction so changes made since the dialog opened, such
+                // as new message counts, are kept; a concurrent change makes it retry.
+                int answerID = selectedAnswer.getAnsID();
+                dialogTasks.run(null, async.supply(db -> db.inTransaction(Connection.TRANSACTION_REPEATABLE_READ, tx -> {
+                    Question current = tx.getQuestionByID(question.getQuestionID());
+                    if (current == null) {
+                        throw new SQLException("The question no longer exists.");
+                    }
+                    current.setAcceptedAnsID(answerID);
+                    current.setResolved(true);
+                    tx.updateQuestion(current);
+                    return current;
+                })), current -> {
+                    question.setAcceptedAnsID(answerID);
                     question.setResolved(true);
-                    dbHelper.updateQuestion(question);
+                    question.setNewMessagesCount(current.getNewMessagesCount());
 
-                    // Update UI
+                    // Update UI; the question table gets the change from the change event
                     statusLabel.setText("Status: Resolved");
-                    refreshQuestionTable(questionTable);
 
-                    // Refresh answer table to show accepted status
-                    answerTable.setItems(FXCollections.observableArrayList(
-                        dbHelper.getAnswersForQuestion(question.getQuestionID())
-                    ));
+                    // Redraw the answer table to show accepted status
+                    answerTable.refresh();
 
                     showAlert("Answer accepted and question marked as resolved.", Alert.AlertType.INFORMATION);
-                } catch (SQLException ex) {
-                    showAlert("Error accepting answer: " + ex.getMessage(), Alert.AlertType.ERROR);
-                }
+                }, ex -> showAlert("Error accepting answer: " + ex.getMessage(), Alert.AlertType.ERROR));
             } else {
                 showAlert("Please select an answer to accept.", Alert.AlertType.WARNING);
             }
@@ -546,42 +612,31 @@ public class StudentHomePage {
             answerDialog.setContentText("Answer:");
 
             answerDialog.showAndWait().ifPresent(answerText -> {
-                try {
-                    // Get all answers from the database to find the max ID
-                    List<Answer> allAnswers = dbHelper.getAllAnswers();  // You'll need to add this method to DatabaseHelper
-                    int newId = 1;
-                    if (!allAnswers.isEmpty()) {
-                        newId = allAnswers.stream()
-                                        .mapToInt(Answer::getAnsID)
-                                        .max()
-                                        .getAsInt() + 1;
+                // An ID of 0 lets the database generate the answer ID
+                Answer newAnswer = new Answer(
+                    0,
+                    question.getQuestionID(),
+                    answerText,
+                    user.getUserName(),
+                    new Date()
+                );
+
+                // Update unread count for the question owner if it's not their own answer
+                boolean notifyOwner = !user.getUserName().equals(question.getPostedBy());
+
+                // The answer and the unread count commit together
+                dialogTasks.run(null, async.run(db -> db.inTransaction(tx -> {
+                    tx.insertAnswer(newAnswer);
+                    if (notifyOwner) {
+                        tx.addNewMessages(question.getQuestionID(), 1);
                     }
-
-                    Answer newAnswer = new Answer(
-                        newId,
-                        question.getQuestionID(),
-                        answerText,
-                        user.getUserName(),
-                        new Date()
-                    );
-
-                    dbHelper.insertAnswer(newAnswer);
-
-                    // Update unread count for the question owner if it's not their own answer
-                    if (!user.getUserName().equals(question.getPostedBy())) {
+                    return null;
+                })), done -> {
+                    // Both tables get the new answer from the change events
+                    if (notifyOwner) {
                         question.setNewMessagesCount(question.getNewMessagesCount() + 1);
-                        dbHelper.updateQuestion(question);
                     }
-
-                    // Refresh both the answer table and the main question table
-                    answerTable.setItems(FXCollections.observableArrayList(
-                        dbHelper.getAnswersForQuestion(question.getQuestionID())
-                    ));
-                    refreshQuestionTable(questionTable);
-
-                } catch (SQLException ex) {
-                    showAlert("Error saving answer: " + ex.getMessage(), Alert.AlertType.ERROR);
-                }
+                }, ex -> showAlert("Error saving answer: " + ex.getMessage(), Alert.AlertType.ERROR));
             });
         });
 
@@ -596,21 +651,16 @@ public class StudentHomePage {
                     updateDialog.setContentText("Answer:");
 
                     updateDialog.showAndWait().ifPresent(updatedText -> {
-                        try {
-                            Answer updatedAnswer = new Answer(
-                                selectedAnswer.getAnsID(),
-                                selectedAnswer.getQuestionID(),
-                                updatedText,
-                                selectedAnswer.getAnsweredBy(),
-                                new Date()  // Update the timestamp
-                            );
-                            dbHelper.updateAnswer(updatedAnswer);
-                            answerTable.setItems(FXCollections.observableArrayList(
-                                dbHelper.getAnswersForQuestion(question.getQuestionID())
-                            ));
-                        } catch (SQLException ex) {
-                            showAlert("Error updating answer: " + ex.getMessage(), Alert.AlertType.ERROR);
-                        }
+                        Answer updatedAnswer = new Answer(
+                            selectedAnswer.getAnsID(),
+                            selectedAnswer.getQuestionID(),
+                            updatedText,
+                            selectedAnswer.getAnsweredBy(),
+                            new Date()  // Update the timestamp
+                        );
+                        dialogTasks.run(null, async.run(db -> db.updateAnswer(updatedAnswer)),
+                            done -> { },
+                            ex -> showAlert("Error updating answer: " + ex.getMessage(), Alert.AlertType.ERROR));
                     });
                 } else {
                     showAlert("You can only update your own answers.", Alert.AlertType.WARNING);
@@ -631,14 +681,25 @@ public class StudentHomePage {
                     confirmation.showAndWait();
 
                     if (confirmation.getResult() == ButtonType.YES) {
-                        try {
-                            dbHelper.deleteAnswer(selectedAnswer.getAnsID());
-                            answerTable.setItems(FXCollections.observableArrayList(
-                                dbHelper.getAnswersForQuestion(question.getQuestionID())
-                            ));
-                        } catch (SQLException ex) {
-                            showAlert("Error deleting answer: " + ex.getMessage(), Alert.AlertType.ERROR);
-                        }
+                        // Deleting the accepted answer reopens the question in the same transaction
+                        int answerID = selectedAnswer.getAnsID();
+                        dialogTasks.run(null, async.run(db -> db.inTransaction(tx -> {
+                            tx.deleteAnswer(answerID);
+                            Question current = tx.getQuestionByID(question.getQuestionID());
+                            if (current != null && current.getAcceptedAnsID() == answerID) {
+                                current.setAcceptedAnsID(-1);
+                                current.setResolved(false);
+                                tx.updateQuestion(current);
+                            }
+                            return null;
+                        })), done -> {
+                            if (question.getAcceptedAnsID() == answerID) {
+                                question.setAcceptedAnsID(-1);
+                                question.setResolved(false);
+                                statusLabel.setText("Status: Unresolved");
+                                acceptAnswerButton.setVisible(question.getPostedBy().equals(user.getUserName()));
+                            }
+                        }, ex -> showAlert("Error deleting answer: " + ex.getMessage(), Alert.AlertType.ERROR));
                     }
                 } else {
                     showAlert("You can only delete your own answers.", Alert.AlertType.WARNING);
@@ -655,22 +716,16 @@ public class StudentHomePage {
             dialog.setHeaderText("Enter search keyword:");
             dialog.setContentText("Keyword:");
 
-            dialog.showAndWait().ifPresent(keyword -> {
-                try {
-                    List<Answer> allAnswers = dbHelper.getAnswersForQuestion(question.getQuestionID());
-                    List<Answer> filteredAnswers = allAnswers.stream()
-                        .filter(answer -> answer.getBodyText().toLowerCase().contains(keyword.toLowerCase()))
-                        .toList();
-                    answerTable.setItems(FXCollections.observableArrayList(filteredAnswers));
-                } catch (SQLException ex) {
-                    showAlert("Error searching answers: " + ex.getMessage(), Alert.AlertType.ERROR);
-                }
-            });
+            dialog.showAndWait().ifPresent(loadAnswers);
         });
 
         dialogLayout.getChildren().addAll(statusBox, answerTable, buttonBox);
         dialogStage.setScene(new Scene(dialogLayout, 600, 400));
         dialogStage.setTitle("Answers for Question: " + question.getBodyText());
+        dialogStage.setOnHidden(e -> {
+            dialogTasks.cancel(ANSWERS_REQUEST);
+            DatabaseHelper.removeChangeListener(answerChanges);
+        });
         dialogStage.show();
     }
 
@@ -714,18 +769,88 @@ public class StudentHomePage {
         chatWindow.show();
     }
 
+    /**
+     * Loads the next page of questions when the table is scrolled near the bottom.
+     * The vertical scroll bar only exists once the table has a skin, so the listener
+     * is attached when the skin is created.
+     * 
+     * @param table The question table to page.
+     */
+    private void installLazyLoading(TableView<Question> table) {
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            for (Node node : table.lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                    ScrollBar bar = (ScrollBar) node;
+                    bar.valueProperty().addListener((o, oldValue, value) -> {
+                        // Only one page is fetched at a time, and not while the list is being replaced
+                        if (value.doubleValue() >= bar.getMax() * 0.95 && tableModel.hasMore()
+                                && !tasks.isRunning(PAGE_REQUEST) && !tasks.isRunning(LIST_REQUEST)) {
+                            int cursor = tableModel.getCursor();
+                            tasks.run(PAGE_REQUEST, async.supply(db -> tableModel.fetchPage(cursor)),
+                                tableModel::apply,
+                                ex -> showAlert("Error loading questions: " + ex.getMessage(), Alert.AlertType.ERROR));
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Loads the full version of the question selected in the table and passes it to an
+     * action. Table rows only hold a preview of the body text, so the question is
+     * reloaded in the background before it is shown or edited.
+     * 
+     * @param table The question table.
+     * @param noSelectionMessage The warning shown if no question is selected.
+     * @param action Receives the question with its full body text on the JavaFX thread.
+     */
+    private void withSelectedQuestion(TableView<Question> table, String noSelectionMessage, Consumer<Question> action) {
+        Question selected = table.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showAlert(noSelectionMessage, Alert.AlertType.WARNING);
+            return;
+        }
+        tasks.run(SELECTION_REQUEST, async.supply(db -> db.getQuestionByID(selected.getQuestionID())),
+            full -> action.accept(full != null ? full : selected),
+            ex -> showAlert("Error loading question: " + ex.getMessage(), Alert.AlertType.ERROR));
+    }
+
+    /**
+     * Loads the rows of the questions that changed since the last call and applies them to
+     * the table in place. Events that arrive while rows are loading are collected and
+     * loaded together afterwards.
+     */
+    private void loadQuestionChanges() {
+        if (loadingQuestionChanges || pendingQuestionChanges.isEmpty()) {
+            return;
+        }
+        List<Integer> questionIDs = new ArrayList<>(pendingQuestionChanges);
+        pendingQuestionChanges.clear();
+        loadingQuestionChanges = true;
+        tasks.run(null, async.supply(db -> tableModel.fetchChanges(questionIDs)), changes -> {
+            loadingQuestionChanges = false;
+            tableModel.apply(changes);
+            loadQuestionChanges();
+        }, ex -> {
+            loadingQuestionChanges = false;
+            showAlert("Error refreshing questions: " + ex.getMessage(), Alert.AlertType.ERROR);
+        });
+    }
+
     /**
      * Refreshes the question table with the latest data from the database.
      * 
      * @param table The TableView to be refreshed with updated question data.
      */
     private void refreshQuestionTable(TableView<Question> table) {
-        try {
-            List<Question> questions = dbHelper.getAllQuestions();
-            table.setItems(FXCollections.observableArrayList(questions));
-        } catch (SQLException ex) {
-            showAlert("Error refreshing questions: " + ex.getMessage(), Alert.AlertType.ERROR);
-        }
+        // Replaces any listing, search or page load still running
+        tasks.cancel(PAGE_REQUEST);
+        tasks.run(LIST_REQUEST, async.supply(db -> tableModel.fetchFirstPage()), page -> {
+            tableModel.apply(page);
+            table.setItems(tableModel.getQuestions());
+            table.refresh();
+        }, ex -> showAlert("Error refreshing questions: " + ex.getMessage(), Alert.AlertType.ERROR));
     }
 
     /**
@@ -0,0 +1,219 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * An in-memory inverted index used to search question and answer text.
+ * <p>
+ * Text is split into lower-case words. Every word in a query is matched as a prefix,
+ * so "data" finds "database", and a document must match every query word. Results are
+ * ranked with a BM25-style score in which exact word matches count more than prefix
+ * matches. Documents are added, replaced and removed one at a time, so the index is
+ * kept up to date as text is inserted or edited. The class is safe to use from several
+ * threads.
+ * </p>
+ */
+public class TextIndex {
+    // BM25 tuning constants
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Weight of a prefix match relative to an exact word match
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    // word -> (document ID -> occurrences of the word in that document)
+    private final TreeMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    // document ID -> the words indexed for it, so the document can be removed again
+    private final Map<Integer, List<String>> documents = new HashMap<>();
+    private long totalLength = 0;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds a document to the index, replacing any text previously indexed under its ID.
+     *
+     * @param docId The ID of the document, such as a question ID.
+     * @param text The text to index.
+     */
+    public void put(int docId, String text) {
+        List<String> words = tokenize(text);
+        lock.writeLock().lock();
+        try {
+            removeLocked(docId);
+            for (String word : words) {
+                postings.computeIfAbsent(word, w -> new HashMap<>()).merge(docId, 1, Integer::sum);
+            }
+            documents.put(docId, words);
+            totalLength += words.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a document from the index.
+     *
+     * @param docId The ID of the document.
+     */
+    public void remove(int docId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(int docId) {
+        List<String> words = documents.remove(docId);
+        if (words == null) {
+            return;
+        }
+        totalLength -= words.size();
+        for (String word : words) {
+            Map<Integer, Integer> docs = postings.get(word);
+            if (docs != null && docs.remove(docId) != null && docs.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Removes every document.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the documents that match every word of the query, best match first.
+     *
+     * @param query The words to search for.
+     * @param limit The maximum number of results.
+     * @return The matching document IDs, ordered by decreasing score. The list is empty
+     *         if the query has no words.
+     */
+    public List<Integer> search(String query, int limit) {
+        return search(query, limit, null);
+    }
+
+    /**
+     * Finds the documents that match every word of the query and are accepted by a
+     * filter, best match first.
+     *
+     * @param query The words to search for.
+     * @param limit The maximum number of results.
+     * @param filter Decides which document IDs may be returned, or null to allow all.
+     * @return The matching document IDs, ordered by decreasing score.
+     */
+    public List<Integer> search(String query, int limit, IntPredicate filter) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            double avgLength = docCount == 0 ? 1 : (double) totalLength / docCount;
+            Map<Integer, Double> scores = null;
+
+            for (String word : words) {
+                Map<Integer, Double> wordScores = new HashMap<>();
+                // Every indexed word that starts with the query word
+                SortedMap<String, Map<Integer, Integer>> matches = postings.subMap(word, word + Character.MAX_VALUE);
+                for (Map.Entry<String, Map<Integer, Integer>> match : matches.entrySet()) {
+                    Map<Integer, Integer> docs = match.getValue();
+                    double weight = match.getKey().equals(word) ? 1.0 : PREFIX_WEIGHT;
+                    double idf = Math.log(1 + (docCount - docs.size() + 0.5) / (docs.size() + 0.5));
+                    for (Map.Entry<Integer, Integer> doc : docs.entrySet()) {
+                        if (filter != null && !filter.test(doc.getKey())) {
+                            continue;
+                        }
+                        int tf = doc.getValue();
+                        double length = documents.get(doc.getKey()).size();
+                        double score = weight * idf * tf * (K1 + 1)
+                                / (tf + K1 * (1 - B + B * length / avgLength));
+                        wordScores.merge(doc.getKey(), score, Double::sum);
+                    }
+                }
+
+                // A document must match every word of the query
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    Map<Integer, Double> previous = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<Integer, Double> entry : wordScores.entrySet()) {
+                        Double earlier = previous.get(entry.getKey());
+                        if (earlier != null) {
+                            scores.put(entry.getKey(), earlier + entry.getValue());
+                        }
+                    }
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+
+            List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort((a, b) -> {
+                int byScore = Double.compare(b.getValue(), a.getValue());
+                return byScore != 0 ? byScore : Integer.compare(a.getKey(), b.getKey());
+            });
+            List<Integer> result = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (int i = 0; i < ranked.size() && i < limit; i++) {
+                result.add(ranked.get(i).getKey());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of documents in the index.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into lower-case words made of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
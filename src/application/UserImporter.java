@@ -0,0 +1,249 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import databasePart1.DatabaseHelper;
+
+/**
+ * Imports a whole cohort of users from a CSV file.
+ * <p>
+ * Each line holds {@code userName,password,role,firstName,lastName,email}; a header line
+ * starting with "userName" is skipped, and fields may be quoted to contain commas. The role
+ * is one or more of Student, Reviewer, Instructor and Staff separated by commas or
+ * semicolons, and defaults to Student when empty. Admin accounts cannot be imported.
+ * </p>
+ * <p>
+ * Every row is checked with the same validators as the account setup page, in parallel,
+ * and the valid rows are then written in one transaction by
+ * {@link DatabaseHelper#registerAll(List)}. Rows that fail are reported with their line
+ * number and do not stop the others.
+ * </p>
+ */
+public class UserImporter {
+    private static final int COLUMNS = 6;
+    private static final String[] ROLES = {"Student", "Reviewer", "Instructor", "Staff"};
+
+    /**
+     * A row that was not imported.
+     */
+    public static class RowError {
+        private final int line;
+        private final String userName;
+        private final String message;
+
+        RowError(int line, String userName, String message) {
+            this.line = line;
+            this.userName = userName;
+            this.message = message;
+        }
+
+        /** The line number in the file, starting at 1. */
+        public int getLine() { return line; }
+        public String getUserName() { return userName; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "Line " + line + (userName.isEmpty() ? "" : " (" + userName + ")") + ": " + message.trim();
+        }
+    }
+
+    /**
+     * The outcome of an import.
+     */
+    public static class Report {
+        private final int imported;
+        private final List<RowError> errors;
+        private final long millis;
+
+        Report(int imported, List<RowError> errors, long millis) {
+            this.imported = imported;
+            this.errors = Collections.unmodifiableList(errors);
+            this.millis = millis;
+        }
+
+        /** The number of users registered. */
+        public int getImported() { return imported; }
+        /** The rows that were rejected, in file order. */
+        public List<RowError> getErrors() { return errors; }
+        /** How long the import took. */
+        public long getMillis() { return millis; }
+
+        @Override
+        public String toString() {
+            return "Imported " + imported + " users, rejected " + errors.size() + " rows in " + millis + " ms";
+        }
+    }
+
+    // The validators keep no per-call state, so the worker threads share them
+    private final UserNameRecognizer userNames = new UserNameRecognizer();
+    private final PasswordEvaluator passwords = new PasswordEvaluator();
+    private final NameRecognizer names = new NameRecognizer();
+    private final EmailRecognizer emails = new EmailRecognizer();
+
+    private final DatabaseHelper databaseHelper;
+
+    public UserImporter(DatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * Imports the users in a UTF-8 CSV file.
+     */
+    public Report importFile(Path file) throws IOException, SQLException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importCsv(reader);
+        }
+    }
+
+    /**
+     * Imports the users read from CSV text.
+     */
+    public Report importCsv(Reader reader) throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+        List<String[]> rows = new ArrayList<>();
+        List<Integer> lines = new ArrayList<>();
+        List<RowError> errors = new ArrayList<>();
+
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && line.regionMatches(true, 0, "userName", 0, 8))) {
+                continue;
+            }
+            String[] fields = parseLine(line);
+            if (fields == null || fields.length != COLUMNS) {
+                errors.add(new RowError(lineNumber, "", "Expected " + COLUMNS
+                        + " fields: userName,password,role,firstName,lastName,email"));
+                continue;
+            }
+            rows.add(fields);
+            lines.add(lineNumber);
+        }
+
+        // Validate every row on the common pool; each row gets its own result object
+        String[] messages = new String[rows.size()];
+        IntStream.range(0, rows.size()).parallel().forEach(i -> messages[i] = validate(rows.get(i)));
+
+        List<User> users = new ArrayList<>();
+        Map<String, Integer> userLines = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            String[] f = rows.get(i);
+            if (messages[i] == null && userLines.containsKey(f[0])) {
+                messages[i] = "The user name also appears on line " + userLines.get(f[0]);
+            }
+            if (messages[i] != null) {
+                errors.add(new RowError(lines.get(i), f[0], messages[i]));
+                continue;
+            }
+            userLines.put(f[0], lines.get(i));
+            users.add(new User(f[0], f[1], normalizeRoles(f[2]), f[3], f[4], f[5]));
+        }
+
+        List<String> taken = databaseHelper.registerAll(users);
+        for (String userName : taken) {
+            errors.add(new RowError(userLines.get(userName), userName, "This username is taken"));
+        }
+        errors.sort((a, b) -> Integer.compare(a.getLine(), b.getLine()));
+        return new Report(users.size() - taken.size(), errors, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Returns the first error message for a row, or null if the row is valid.
+     */
+    private String validate(String[] f) {
+        ValidationResult result = new ValidationResult();
+        if (!userNames.validate(f[0], result)) {
+            return userNames.describe(result);
+        }
+        if (!passwords.validate(f[1], result)) {
+            return passwords.describe(result);
+        }
+        if (normalizeRoles(f[2]) == null) {
+            return "Unknown role \"" + f[2] + "\"; use Student, Reviewer, Instructor or Staff";
+        }
+        if (!names.validate(f[3], f[4], result)) {
+            return names.describe(result);
+        }
+        if (!emails.validate(f[5], result)) {
+            return emails.describe(result);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the roles in the stored form, such as "Student,Reviewer", or null if one of
+     * them is not a role that can be imported.
+     */
+    static String normalizeRoles(String roles) {
+        if (roles.isBlank()) {
+            return ROLES[0];
+        }
+        StringBuilder normalized = new StringBuilder();
+        for (String part : roles.split("[,;]")) {
+            String role = null;
+            for (String known : ROLES) {
+                if (known.equalsIgnoreCase(part.trim())) {
+                    role = known;
+                }
+            }
+            if (role == null) {
+                return null;
+            }
+            if (normalized.length() > 0) {
+                normalized.append(',');
+            }
+            normalized.append(role);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Splits one CSV line into fields. Fields may be enclosed in double quotes, with a
+     * doubled quote standing for a quote character. Returns null for an unterminated quote.
+     */
+    static String[] parseLine(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+}
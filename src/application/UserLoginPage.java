@@ -11,8 +11,8 @@ import javafx.scene.layout.BackgroundSize;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
-
+import databasePart1.AsyncDatabase;
+import databasePart1.AuthResult;
 import databasePart1.DatabaseHelper;
 
 /**
@@ -22,9 +22,13 @@ import databasePart1.DatabaseHelper;
 public class UserLoginPage {
 
     private final DatabaseHelper databaseHelper;
+    // The login queries run in the background so the window stays responsive
+    private final AsyncDatabase async;
+    private final BackgroundTasks tasks = new BackgroundTasks();
 
     public UserLoginPage(DatabaseHelper databaseHelper) {
         this.databaseHelper = databaseHelper;
+        this.async = new AsyncDatabase(databaseHelper);
     }
 
     public void show(Stage primaryStage, Scene previousScene) {
@@ -54,71 +58,57 @@ public class UserLoginPage {
             // Retrieve user inputs
             String userName = userNameField.getText();
             String password = passwordField.getText();
-            try { 
-                // Updated: Create a new User object using empty strings for the additional parameters.
-                // Note that the constructor now requires six parameters:
-                // userName, password, role, firstName, lastName, email.
-                User user = new User(userName, password, "", "", "", "");
-                	
-                
-                // Retrieve the user's role from the database using userName
-                String role = databaseHelper.getUserRole(userName);
-                
-             // Check if the password is only number and if it is correct password for the user than it is a otp
-                if (password.matches("[0-9]+") && databaseHelper.isOTPValid(userName, password)) {
+
+            // Check the credentials in the background; the button stays disabled until it finishes
+            loginButton.setDisable(true);
+            // One query checks the password and loads the whole account
+            tasks.run("login", async.supply(db -> db.authenticate(userName, password)), result -> {
+                loginButton.setDisable(false);
+                if (result.getStatus() == AuthResult.Status.OTP_RESET) {
                     new UserPasswordReset(userName).show(primaryStage, primaryStage.getScene());
-                    return;
                 }
-                
-                else if (role != null) {
-                    user.setRole(role);
-                    // Attempt to log in the user with the given credentials
-                    if (databaseHelper.login(user)) {
-                        // Get user details from database to populate the User object
-                        String firstName = databaseHelper.getUserFirstName(userName);
-                        String lastName = databaseHelper.getUserLastName(userName);
-                        String email = databaseHelper.getUserEmail(userName);
-                        user = new User(userName, password, role, firstName, lastName, email);
-
-                        if (role.contains(",")) {
-                            // Multiple roles - show role selection page
-                            new SelectRole().show(primaryStage, user, role);
-                        } else {
-                            // Single role - direct navigation
-                            switch(role.trim()) {
-                                case "Student":
-                                    new StudentHomePage().show(primaryStage, user);
-                                    break;
-                                case "Staff":
-                                    new StaffHomePage().show(primaryStage, user);
-                                    break;
-                                case "Reviewer":
-                                    new ReviewerHomePage().show(primaryStage, user);
-                                    break;
-                                case "Instructor":
-                                    new InstructorHomePage().show(primaryStage, user);
-                                    break;
-                                case "admin":
-                                    new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
-                                    break;
-                                default:
-                                    System.out.println("Unknown role: " + role);
-                                    break;
-                            }
-                        }
+                else if (result.getStatus() == AuthResult.Status.SUCCESS) {
+                    User user = result.getUser();
+                    String role = user.getRole();
+
+                    if (role.contains(",")) {
+                        // Multiple roles - show role selection page
+                        new SelectRole().show(primaryStage, user, role);
                     } else {
-                        // Display an error if the login fails
-                        errorLabel.setText("Error logging in");
+                        // Single role - direct navigation
+                        switch(role.trim()) {
+                            case "Student":
+                                new StudentHomePage().show(primaryStage, user);
+                                break;
+                            case "Staff":
+                                new StaffHomePage().show(primaryStage, user);
+                                break;
+                            case "Reviewer":
+                                new ReviewerHomePage().show(primaryStage, user);
+                                break;
+                            case "Instructor":
+                                new InstructorHomePage().show(primaryStage, user);
+                                break;
+                            case "admin":
+                                new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
+                                break;
+                            default:
+                                System.out.println("Unknown role: " + role);
+                                break;
+                        }
                     }
+                } else if (result.getStatus() == AuthResult.Status.BAD_PASSWORD) {
+                    // Display an error if the login fails
+                    errorLabel.setText("Error logging in");
                 } else {
                     // Display an error if the account does not exist
                     errorLabel.setText("User account doesn't exist");
                 }
-                
-            } catch (SQLException e) {
+            }, e -> {
+                loginButton.setDisable(false);
                 System.err.println("Database error: " + e.getMessage());
                 e.printStackTrace();
-            }
+            });
         });
 
         // Back button to return to the previous scene
@@ -127,7 +117,7 @@ public class UserLoginPage {
 
         VBox layout = new VBox(10);
         layout.setStyle("-fx-padding: 20; -fx-alignment: center;");
-        layout.getChildren().addAll(text, userNameField, passwordField, loginButton, errorLabel, backButton);
+        layout.getChildren().addAll(text, userNameField, passwordField, loginButton, tasks.getIndicator(), errorLabel, backButton);
 
         // Load background image
         Image backgroundImage = new Image(getClass().getResource("/background.jpg").toExternalForm());
@@ -1,7 +1,7 @@
 package application;
 
 
-public class UserNameRecognizer {
+public class UserNameRecognizer implements InputValidator {
 	/**
 	 * <p> Title: FSM-translated UserNameRecognizer. </p>
 	 * 
@@ -16,32 +16,49 @@ public class UserNameRecognizer {
 	 * @version 1.00		2024-09-13	Initial baseline derived from the Even Recognizer
 	 * @version 1.01		2024-09-17	Correction to address UNChar coding error, improper error
 	 * 									message, and improve internal documentation
+	 * @version 1.02		2026-10-17	Instance-based engine with a ValidationResult instead of
+	 * 									static state, so user names can be checked on several
+	 * 									threads at once
 	 * 
 	 */
 
 	/**********************************************************************************************
 	 * 
-	 * Result attributes to be used for GUI applications where a detailed error message and a 
-	 * pointer to the character of the error will enhance the user experience.
+	 * The recognizer keeps the state of the Finite State Machine in local variables, so one
+	 * instance can be shared by several threads. The console trace is off by default.
 	 * 
 	 */
 
-	public static String userNameRecognizerErrorMessage = "";	// The error message text
-	public static String userNameRecognizerInput = "";			// The input being processed
-	public static int userNameRecognizerIndexofError = -1;		// The index of error location
-	private static int state = 0;						// The current state value
-	private static int nextState = 0;					// The next state value
-	private static boolean finalState = false;			// Is this state a final state?
-	private static String inputLine = "";				// The input line
-	private static char currentChar;					// The current character in the line
-	private static int currentCharNdx;					// The index of the current character
-	private static boolean running;						// The flag that specifies if the FSM is 
-														// running
-	private static int userNameSize = 0;			// A numeric value may not exceed 16 characters
-	private static boolean invalidSpecialCharacter = false; // The flag that specifies valid special chars
+	private static final int MAX_SIZE = 20;				// A UserName may not exceed 20 characters
+	private static final int MIN_SIZE = 8;				// A UserName needs at least 8 characters
+
+	// Set -Dvalidation.trace=true to print the Finite State Machine trace to the console
+	private static final boolean TRACE_DEFAULT = Boolean.getBoolean("validation.trace");
+
+	// Shared by the static checkForValidUserName method
+	private static final UserNameRecognizer DEFAULT = new UserNameRecognizer();
+
+	private final boolean trace;						// Print an execution trace to the console
+
+	/**********
+	 * Creates a recognizer. Tracing is off unless the validation.trace system property is set.
+	 */
+	public UserNameRecognizer() {
+		this(TRACE_DEFAULT);
+	}
+
+	/**********
+	 * Creates a recognizer.
+	 * 
+	 * @param trace		True to print the Finite State Machine trace to the console
+	 */
+	public UserNameRecognizer(boolean trace) {
+		this.trace = trace;
+	}
 
 	// Private method to display debugging data
-	private static void displayDebuggingInfo() {
+	private static void displayDebuggingInfo(String inputLine, int currentCharNdx, int state,
+			boolean finalState, int nextState, int userNameSize) {
 		// Display the current state of the FSM as part of an execution trace
 		if (currentCharNdx >= inputLine.length())
 			// display the line with the current state numbers aligned
@@ -49,54 +66,40 @@ public class UserNameRecognizer {
 					((finalState) ? "       F   " : "           ") + "None");
 		else
 			System.out.println(((state > 99) ? " " : (state > 9) ? "  " : "   ") + state + 
-				((finalState) ? "       F   " : "           ") + "  " + currentChar + " " + 
+				((finalState) ? "       F   " : "           ") + "  " + inputLine.charAt(currentCharNdx) + " " + 
 				((nextState > 99) ? "" : (nextState > 9) || (nextState == -1) ? "   " : "    ") + 
 				nextState + "     " + userNameSize);
 	}
-	
-	// Private method to move to the next character within the limits of the input line
-	private static void moveToNextCharacter() {
-		currentCharNdx++;
-		if (currentCharNdx < inputLine.length())
-			currentChar = inputLine.charAt(currentCharNdx);
-		else {
-			currentChar = ' ';
-			running = false;
-		}
-	}
 
 	/**********
 	 * This method is a mechanical transformation of a Finite State Machine diagram into a Java
-	 * method.
+	 * method. It allocates nothing when the user name is valid.
 	 * 
 	 * @param input		The input string for the Finite State Machine
-	 * @return			An output string that is empty if every things is okay or it is a String
-	 * 						with a helpful description of the error
+	 * @param result	Receives the error code and the index of the error
+	 * @return			True if the input is a valid user name
 	 */
-	public static String checkForValidUserName(String input) {
+	@Override
+	public boolean validate(String input, ValidationResult result) {
+		result.reset();
+
 		// Check to ensure that there is input to process
 		if(input.length() <= 0) {
-			userNameRecognizerIndexofError = 0;	// Error at first character;
-			return "\n*** ERROR *** The input is empty";
+			result.fail(ValidationResult.Code.EMPTY, 0);	// Error at first character;
+			return false;
 		}
 		
 		// The local variables used to perform the Finite State Machine simulation
-		state = 0;							// This is the FSM state number
-		inputLine = input;					// Save the reference to the input line as a global
-		currentCharNdx = 0;					// The index of the current character
-		currentChar = input.charAt(0);		// The current character from above indexed position
-
-		// The Finite State Machines continues until the end of the input is reached or at some 
-		// state the current character does not match any valid transition to a next state
+		int state = 0;							// This is the FSM state number
+		int nextState = -1;						// There is no next state
+		boolean finalState = false;				// Is this state a final state?
+		int currentCharNdx = 0;					// The index of the current character
+		char currentChar = input.charAt(0);		// The current character from above indexed position
+		boolean running = true;					// Start the loop
+		int userNameSize = 0;					// Initialize the UserName size
+		boolean invalidSpecialCharacter = false;	// Set when a special character other than _ is found
 
-		userNameRecognizerInput = input;	// Save a copy of the input
-		running = true;						// Start the loop
-		nextState = -1;						// There is no next state
-		System.out.println("\nCurrent Final Input  Next  Date\nState   State Char  State  Size");
-		
-		// This is the place where semantic actions for a transition to the initial state occur
-		
-		userNameSize = 0;					// Initialize the UserName size
+		if (trace) System.out.println("\nCurrent Final Input  Next  Date\nState   State Char  State  Size");
 
 		// The Finite State Machines continues until the end of the input is reached or at some 
 		// state the current character does not match any valid transition to a next state
@@ -106,20 +109,12 @@ public class UserNameRecognizer {
 			// next state
 			switch (state) {
 			case 0: 
-				// State 0 has 1 valid transition that is addressed by an if statement.
-				
-				// The current character is checked against A-Z, a-z, 0-9. If any are matched
-				// the FSM goes to state 1
-				
-				// A-Z, a-z, 0-9 -> State 1
+				// State 0 has 1 valid transition: A-Z, a-z -> State 1
 				if ((currentChar >= 'A' && currentChar <= 'Z') || (currentChar >= 'a' && currentChar <= 'z')) {
 					nextState = 1;
 					
 					// Count the character 
 					userNameSize++;
-					
-					// This only occurs once, so there is no need to check for the size getting
-					// too large.
 				}
 				// If it is none of those characters, the FSM halts
 				else 
@@ -132,7 +127,6 @@ public class UserNameRecognizer {
 				// State 1 has two valid transitions, 
 				//	1: a A-Z, a-z, 0-9 that transitions back to state 1
 				//  2: an underscore that transitions to state 2 
-
 				
 				// A-Z, a-z, 0-9 -> State 1
 				if ((currentChar >= 'A' && currentChar <= 'Z' ) ||		// Check for A-Z
@@ -145,13 +139,13 @@ public class UserNameRecognizer {
 				}
 				// _ -> State 2
 				else if (currentChar == '_') {
-                    nextState = 2;
+					nextState = 2;
 					
 					// Count the _
 					userNameSize++;
 				}
 				// Ensures the special character is an underscore only
-				else if (!Character.isLetterOrDigit(currentChar) && currentChar != '_') {
+				else if (!Character.isLetterOrDigit(currentChar)) {
 					nextState = 2;
 					
 					userNameSize++;
@@ -162,8 +156,8 @@ public class UserNameRecognizer {
 					running = false;
 				
 				// The execution of this state is finished
-				// If the size is larger than 16, the loop must stop
-				if (userNameSize > 20)
+				// If the size is larger than 20, the loop must stop
+				if (userNameSize > MAX_SIZE)
 					running = false;
 				break;			
 				
@@ -178,7 +172,6 @@ public class UserNameRecognizer {
 					
 					// Count the odd digit
 					userNameSize++;
-					
 				}
 				// If it is none of those characters, the FSM halts
 				else 
@@ -186,18 +179,24 @@ public class UserNameRecognizer {
 
 				// The execution of this state is finished
 				// If the size is larger than 20, the loop must stop
-				if (userNameSize > 20)
+				if (userNameSize > MAX_SIZE)
 					running = false;
 				break;			
 			}
 			
 			if (running) {
-				displayDebuggingInfo();
+				if (trace) displayDebuggingInfo(input, currentCharNdx, state, finalState, nextState, userNameSize);
 				// When the processing of a state has finished, the FSM proceeds to the next
 				// character in the input and if there is one, it fetches that character and
 				// updates the currentChar.  If there is no next character the currentChar is
 				// set to a blank.
-				moveToNextCharacter();
+				currentCharNdx++;
+				if (currentCharNdx < input.length())
+					currentChar = input.charAt(currentCharNdx);
+				else {
+					currentChar = ' ';
+					running = false;
+				}
 
 				// Move to the next state
 				state = nextState;
@@ -209,72 +208,92 @@ public class UserNameRecognizer {
 				nextState = -1;
 			}
 			// Should the FSM get here, the loop starts again
-	
 		}
-		displayDebuggingInfo();
-		
-		System.out.println("The loop has ended.");
+		if (trace) {
+			displayDebuggingInfo(input, currentCharNdx, state, finalState, nextState, userNameSize);
+			System.out.println("The loop has ended.");
+		}
 		
 		// When the FSM halts, we must determine if the situation is an error or not.  That depends
 		// of the current state of the FSM and whether or not the whole string has been consumed.
-		// This switch directs the execution to separate code for each of the FSM states and that
-		// makes it possible for this code to display a very specific error message to improve the
-		// user experience.
-		userNameRecognizerIndexofError = currentCharNdx;	// Set index of a possible error;
-		userNameRecognizerErrorMessage = "\n*** ERROR *** ";
-		
-		// The following code is a slight variation to support just console output.
+		// This switch records a specific error code for each of the FSM states, which describe()
+		// turns into a very specific error message to improve the user experience.
 		switch (state) {
 		case 0:
-			// State 0 is not a final state, so we can return a very specific error message
-			userNameRecognizerErrorMessage += "A UserName must start with an alphabetic character (A-Z, a-z).\\n";
-			return userNameRecognizerErrorMessage;
+			// State 0 is not a final state
+			result.fail(ValidationResult.Code.MUST_START_WITH_LETTER, currentCharNdx);
+			return false;
 
 		case 1:
 			// State 1 is a final state.  Check to see if the UserName length is valid.  If so we
 			// we must ensure the whole string has been consumed.
-
-			if (userNameSize < 8 && !invalidSpecialCharacter) {
+			if (userNameSize < MIN_SIZE && !invalidSpecialCharacter)
 				// UserName is too small
-				userNameRecognizerErrorMessage += "A UserName must have at least 8 characters.\n";
-				return userNameRecognizerErrorMessage;
-			}
-			// Invalid special character before minimum 8 characters requirement
-			else if (invalidSpecialCharacter) {
+				result.fail(ValidationResult.Code.TOO_SHORT, currentCharNdx);
+			else if (invalidSpecialCharacter)
 				// There are invalid special characters in the input, so the input is not valid
-				userNameRecognizerErrorMessage += 
-						"A UserName character may only contain the characters A-Z, a-z, 0-9, _.\n";
-					return userNameRecognizerErrorMessage;
-			}
-			else if (userNameSize > 20) {
+				result.fail(ValidationResult.Code.INVALID_CHARACTER, currentCharNdx);
+			else if (userNameSize > MAX_SIZE)
 				// UserName is too long
-				userNameRecognizerErrorMessage += 
-					"A UserName must have no more than 20 character.\n";
-				return userNameRecognizerErrorMessage;
-			}
-			else if (currentCharNdx < input.length()) {
+				result.fail(ValidationResult.Code.TOO_LONG, currentCharNdx);
+			else if (currentCharNdx < input.length())
 				// There are characters remaining in the input, so the input is not valid
-				userNameRecognizerErrorMessage += 
-					"A UserName character may only contain the characters A-Z, a-z, 0-9, _.\n";
-				return userNameRecognizerErrorMessage;
-			}
-			else {
-					// UserName is valid
-					userNameRecognizerIndexofError = -1;
-					userNameRecognizerErrorMessage = "";
-					return userNameRecognizerErrorMessage;
-			}
+				result.fail(ValidationResult.Code.INVALID_CHARACTER, currentCharNdx);
+			else
+				// UserName is valid
+				return true;
+			return false;
 
 		case 2:
-			// State 2 is not a final state, so we can return a very specific error message
-			userNameRecognizerErrorMessage +=
-				"A UserName character after an underscore must be A-Z, a-z, 0-9.\n";
-			return userNameRecognizerErrorMessage;
-			
+			// State 2 is not a final state
+			result.fail(ValidationResult.Code.INVALID_AFTER_UNDERSCORE, currentCharNdx);
+			return false;
+
 		default:
 			// This is for the case where we have a state that is outside of the valid range.
 			// This should not happen
+			return true;
+		}
+	}
+
+	/**********
+	 * Builds the error message for a result produced by this recognizer.
+	 * 
+	 * @param result	The result of validate
+	 * @return			An empty string if the user name is valid, otherwise a description of the error
+	 */
+	@Override
+	public String describe(ValidationResult result) {
+		switch (result.getCode()) {
+		case NONE:
+			return "";
+		case EMPTY:
+			return "\n*** ERROR *** The input is empty";
+		case MUST_START_WITH_LETTER:
+			return "\n*** ERROR *** A UserName must start with an alphabetic character (A-Z, a-z).\\n";
+		case TOO_SHORT:
+			return "\n*** ERROR *** A UserName must have at least 8 characters.\n";
+		case INVALID_CHARACTER:
+			return "\n*** ERROR *** A UserName character may only contain the characters A-Z, a-z, 0-9, _.\n";
+		case TOO_LONG:
+			return "\n*** ERROR *** A UserName must have no more than 20 character.\n";
+		case INVALID_AFTER_UNDERSCORE:
+			return "\n*** ERROR *** A UserName character after an underscore must be A-Z, a-z, 0-9.\n";
+		default:
 			return "";
 		}
 	}
+
+	/**********
+	 * Checks a user name with the default recognizer.
+	 * 
+	 * @param input		The input string for the Finite State Machine
+	 * @return			An output string that is empty if every things is okay or it is a String
+	 * 						with a helpful description of the error
+	 */
+	public static String checkForValidUserName(String input) {
+		ValidationResult result = new ValidationResult();
+		DEFAULT.validate(input, result);
+		return DEFAULT.describe(result);
+	}
 }
\ No newline at end of file
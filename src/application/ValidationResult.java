@@ -0,0 +1,119 @@
+package application;
+
+/**
+ * The outcome of running an {@link InputValidator} on one input.
+ * <p>
+ * A result is filled in by the validator rather than created by it, so a caller that
+ * validates many inputs can reuse one result object and validating a good input
+ * allocates nothing. A result must not be shared between threads while in use.
+ * </p>
+ */
+public class ValidationResult {
+
+    /**
+     * Why the input was rejected.
+     */
+    public enum Code {
+        /** The input is valid. */
+        NONE,
+        /** The input is empty. */
+        EMPTY,
+        /** A character that is not allowed was found at the error index. */
+        INVALID_CHARACTER,
+        /** One or more required conditions are missing; see the flags. */
+        CONDITIONS_NOT_MET,
+        /** The first character is not a letter. */
+        MUST_START_WITH_LETTER,
+        /** The input is shorter than the minimum length. */
+        TOO_SHORT,
+        /** The input is longer than the maximum length. */
+        TOO_LONG,
+        /** The character after an underscore is not a letter or digit. */
+        INVALID_AFTER_UNDERSCORE,
+        /** The input has no letter. */
+        MISSING_LETTER,
+        /** The input has no '@'. */
+        MISSING_AT,
+        /** The input has no '.'. */
+        MISSING_DOT
+    }
+
+    // Flags describing what was found in the input
+    public static final int UPPER_CASE = 1;
+    public static final int LOWER_CASE = 1 << 1;
+    public static final int DIGIT = 1 << 2;
+    public static final int SPECIAL_CHAR = 1 << 3;
+    public static final int LONG_ENOUGH = 1 << 4;
+    public static final int BLOCKED = 1 << 5;
+
+    private Code code = Code.NONE;
+    private int errorIndex = -1;
+    private int flags = 0;
+    private int detail = -1;
+
+    /**
+     * Returns true if the input was accepted.
+     */
+    public boolean isValid() {
+        return code == Code.NONE;
+    }
+
+    public Code getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the index of the character where the error was found, or -1 if the input is valid.
+     */
+    public int getErrorIndex() {
+        return errorIndex;
+    }
+
+    /**
+     * Returns the flags that were set while scanning the input.
+     */
+    public int getFlags() {
+        return flags;
+    }
+
+    /**
+     * Returns true if the given flag was set while scanning the input.
+     */
+    public boolean has(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * Returns extra information whose meaning depends on the validator, such as the
+     * blocked word that was found or the name field that was rejected, or -1.
+     */
+    public int getDetail() {
+        return detail;
+    }
+
+    void reset() {
+        code = Code.NONE;
+        errorIndex = -1;
+        flags = 0;
+        detail = -1;
+    }
+
+    void fail(Code code, int errorIndex) {
+        this.code = code;
+        this.errorIndex = errorIndex;
+    }
+
+    void setFlags(int flags) {
+        this.flags = flags;
+    }
+
+    void setDetail(int detail) {
+        this.detail = detail;
+    }
+
+    @Override
+    public String toString() {
+        return "ValidationResult[code=" + code + ", errorIndex=" + errorIndex
+                + ", flags=" + Integer.toBinaryString(flags) + ", detail=" + detail + "]";
+    }
+}
@@ -0,0 +1,100 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The AsyncDatabase class runs DatabaseHelper calls on background threads so that
+ * pages never wait for the database on the JavaFX application thread.
+ * <p>
+ * Every call returns a CompletableFuture that completes on a database worker thread;
+ * pages hand it to {@code application.BackgroundTasks}, which delivers the result back
+ * on the JavaFX thread. The workers are shared by every page. There are as many workers
+ * as pooled connections, so the workers alone never run the pool dry. They can still
+ * wait on it: the maintenance thread, the change feed poll and the synchronous calls
+ * left on the JavaFX thread borrow from the same pool, up to the pool's borrow timeout.
+ * A call that is cancelled before a worker picks it up is skipped.
+ * </p>
+ */
+public class AsyncDatabase {
+
+    /**
+     * A call that reads a value from the database.
+     */
+    @FunctionalInterface
+    public interface Query<T> {
+        T run(DatabaseHelper db) throws SQLException;
+    }
+
+    /**
+     * A call that changes the database and returns nothing.
+     */
+    @FunctionalInterface
+    public interface Update {
+        void run(DatabaseHelper db) throws SQLException;
+    }
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    // Daemon threads, so a query still running does not keep the application alive
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+        DatabaseHelper.POOL_MAX_SIZE, task -> {
+            Thread thread = new Thread(task, "db-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private final DatabaseHelper db;
+
+    /**
+     * @param db The helper the calls are made on.
+     */
+    public AsyncDatabase(DatabaseHelper db) {
+        this.db = db;
+    }
+
+    /**
+     * Runs a query on a database worker.
+     *
+     * @param query The call to make.
+     * @return A future holding the query's result, or the exception it threw.
+     */
+    public <T> CompletableFuture<T> supply(Query<T> query) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            // Skip requests that were cancelled while they were queued
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(query.run(db));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Runs an update on a database worker.
+     *
+     * @param update The call to make.
+     * @return A future that completes when the update has finished.
+     */
+    public CompletableFuture<Void> run(Update update) {
+        return supply(helper -> {
+            update.run(helper);
+            return null;
+        });
+    }
+
+    /**
+     * Returns the helper the calls are made on.
+     */
+    public DatabaseHelper getHelper() {
+        return db;
+    }
+}
@@ -0,0 +1,44 @@
+package databasePart1;
+
+import application.User;
+
+/**
+ * The AuthResult class holds the outcome of {@link DatabaseHelper#authenticate(String, String)}.
+ * On success it carries the fully populated user, so the login page does not need any
+ * further queries.
+ */
+public class AuthResult {
+
+    /**
+     * How the login attempt ended.
+     */
+    public enum Status {
+        /** The password matched; the user is available. */
+        SUCCESS,
+        /** The password was a valid one-time password; the user must choose a new password. */
+        OTP_RESET,
+        /** The user exists but the password did not match. */
+        BAD_PASSWORD,
+        /** There is no account with that user name. */
+        NO_SUCH_USER
+    }
+
+    private final Status status;
+    private final User user;
+
+    AuthResult(Status status, User user) {
+        this.status = status;
+        this.user = user;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the logged in user, or null unless the status is SUCCESS.
+     */
+    public User getUser() {
+        return user;
+    }
+}
@@ -0,0 +1,80 @@
+package databasePart1;
+
+/**
+ * Describes one committed change to a question, answer, feedback entry or user.
+ * <p>
+ * DatabaseHelper publishes an event after each insert, update or delete commits, and
+ * again in every other process through the {@link ChangeFeed}, so pages can update the
+ * rows they show instead of reloading whole lists. An event only says what changed;
+ * listeners load the new version of the row themselves if they need it.
+ * </p>
+ */
+public final class ChangeEvent {
+
+    /**
+     * The kind of row that changed.
+     */
+    public enum Entity {
+        QUESTION,
+        ANSWER,
+        FEEDBACK,
+        USER
+    }
+
+    /**
+     * What happened to the row.
+     */
+    public enum Op {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    private final Entity entity;
+    private final Op op;
+    private final int id;
+    private final int questionID;
+    private final String userName;
+
+    /**
+     * @param entity The kind of row that changed.
+     * @param op What happened to it.
+     * @param id The question, answer or feedback ID, or 0 for a user.
+     * @param questionID The question the row belongs to; for a question, its own ID, and
+     *                   -1 for a user.
+     * @param userName The user the change is addressed to, such as the recipient of
+     *                 feedback or the user that changed, or null if it concerns everyone.
+     */
+    public ChangeEvent(Entity entity, Op op, int id, int questionID, String userName) {
+        this.entity = entity;
+        this.op = op;
+        this.id = id;
+        this.questionID = questionID;
+        this.userName = userName;
+    }
+
+    public Entity getEntity() {
+        return entity;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getQuestionID() {
+        return questionID;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    @Override
+    public String toString() {
+        return entity + " " + op + " " + id + " (question " + questionID + ")";
+    }
+}
@@ -0,0 +1,161 @@
+package databasePart1;
+
+import java.security.SecureRandom;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ChangeFeed class shares change events between every process that uses the database.
+ * <p>
+ * Each committed change is also written to the ChangeLog table, tagged with the origin of
+ * the process that made it. Other processes poll the table for rows after the last one
+ * they have seen, which is a single indexed range read however large the other tables
+ * are, and turn the rows they did not write themselves back into {@link ChangeEvent}s.
+ * </p>
+ * <p>
+ * Log IDs are taken when a row is inserted but become visible when its transaction
+ * commits, so a row may appear after rows with higher IDs. Skipped IDs are remembered and
+ * looked for again on the next polls until they appear or GAP_TIMEOUT_MILLIS passes; an
+ * ID whose transaction rolled back never appears and is forgotten at that point.
+ * </p>
+ */
+public class ChangeFeed {
+    // How long a skipped log ID is waited for, and the most remembered at once
+    static final long GAP_TIMEOUT_MILLIS = 10 * 1000;
+    static final int MAX_GAPS = 1000;
+
+    // Most log rows read by one poll
+    static final int POLL_BATCH_SIZE = 500;
+
+    private static final String INSERT_CHANGE = "INSERT INTO ChangeLog "
+        + "(origin, entity, op, entityID, questionID, userName) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String READ_CHANGES = "SELECT changeID, origin, entity, op, entityID, questionID, userName "
+        + "FROM ChangeLog WHERE changeID > ? OR changeID = ANY(?) ORDER BY changeID LIMIT " + POLL_BATCH_SIZE;
+
+    // Identifies this process's rows, which are skipped when polling
+    private final long origin = new SecureRandom().nextLong();
+
+    private long lastChangeID = -1;                             // -1 until start() has run
+    private final Map<Long, Long> gaps = new LinkedHashMap<>(); // Skipped ID to when it was noticed
+
+    /**
+     * Starts reading after the newest change already logged, so only changes made from
+     * now on are reported.
+     */
+    public synchronized void start(PooledConnection connection) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT COALESCE(MAX(changeID), 0) FROM ChangeLog");
+             ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            lastChangeID = rs.getLong(1);
+        }
+        gaps.clear();
+    }
+
+    /**
+     * Writes changes to the log. Inside a transaction they commit with it.
+     */
+    public void record(PooledConnection connection, List<ChangeEvent> events) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(INSERT_CHANGE)) {
+            for (ChangeEvent event : events) {
+                pstmt.setLong(1, origin);
+                pstmt.setString(2, event.getEntity().name());
+                pstmt.setString(3, event.getOp().name());
+                pstmt.setInt(4, event.getId());
+                pstmt.setInt(5, event.getQuestionID());
+                pstmt.setString(6, event.getUserName());
+                if (events.size() == 1) {
+                    pstmt.executeUpdate();
+                } else {
+                    pstmt.addBatch();
+                }
+            }
+            if (events.size() > 1) {
+                pstmt.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Reads the changes other processes committed since the last poll, oldest first.
+     */
+    public synchronized List<ChangeEvent> poll(PooledConnection connection) throws SQLException {
+        List<ChangeEvent> events = new ArrayList<>();
+        if (lastChangeID < 0) {
+            return events;
+        }
+        long now = System.currentTimeMillis();
+        gaps.values().removeIf(noticed -> now - noticed > GAP_TIMEOUT_MILLIS);
+
+        try (PreparedStatement pstmt = connection.prepareStatement(READ_CHANGES)) {
+            pstmt.setLong(1, lastChangeID);
+            pstmt.setObject(2, gaps.keySet().toArray(new Long[0]));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    long changeID = rs.getLong("changeID");
+                    if (gaps.remove(changeID) == null) {
+                        // IDs skipped between the last row seen and this one may still commit
+                        for (long missing = Math.max(lastChangeID + 1, changeID - MAX_GAPS); missing < changeID; missing++) {
+                            gaps.put(missing, now);
+                        }
+                        lastChangeID = Math.max(lastChangeID, changeID);
+                    }
+                    if (rs.getLong("origin") == origin) {
+                        continue;   // Already reported when this process made the change
+                    }
+                    events.add(new ChangeEvent(
+                        ChangeEvent.Entity.valueOf(rs.getString("entity")),
+                        ChangeEvent.Op.valueOf(rs.getString("op")),
+                        rs.getInt("entityID"),
+                        rs.getInt("questionID"),
+                        rs.getString("userName")
+                    ));
+                }
+            }
+        }
+        // Keep the newest gaps if a burst of rolled-back transactions left too many
+        Iterator<Long> oldest = gaps.keySet().iterator();
+        while (gaps.size() > MAX_GAPS) {
+            oldest.next();
+            oldest.remove();
+        }
+        return events;
+    }
+
+    /**
+     * Deletes log rows older than the given age. Every running process has read them long
+     * before; one that starts later begins after the newest row anyway.
+     *
+     * @return The number of rows deleted.
+     */
+    public int purge(PooledConnection connection, long maxAgeMinutes) throws SQLException {
+        String query = "DELETE FROM ChangeLog WHERE changedAt < DATEADD(MINUTE, ?, CURRENT_TIMESTAMP)";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setLong(1, -maxAgeMinutes);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Creates the ChangeLog table. This is part of schema version 5.
+     */
+    static void createTable(Statement statement) throws SQLException {
+        statement.execute("CREATE TABLE IF NOT EXISTS ChangeLog ("
+                + "changeID BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "origin BIGINT, "
+                + "entity VARCHAR(16), "
+                + "op VARCHAR(16), "
+                + "entityID INT, "
+                + "questionID INT, "
+                + "userName VARCHAR(255), "
+                + "changedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_changelog_changed_at ON ChangeLog(changedAt)");
+    }
+}
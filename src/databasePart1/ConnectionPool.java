@@ -0,0 +1,398 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The ConnectionPool class keeps a bounded set of JDBC connections that are shared by
+ * every DatabaseHelper in the application.
+ * <p>
+ * Connections are checked out with {@link #borrow()} and returned by closing the
+ * {@link PooledConnection}. When every connection is in use, callers wait up to the
+ * borrow timeout for one to be returned. Idle connections are checked with a validation
+ * query before being reused and are closed by a background evictor once they have been
+ * idle for longer than the idle timeout.
+ * </p>
+ */
+public class ConnectionPool {
+
+    // Query used to check that an idle connection is still alive
+    static final String VALIDATION_QUERY = "SELECT 1";
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int statementCacheSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition returned = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();   // Most recently used first
+    private final ScheduledExecutorService evictor;
+    private int openCount = 0;              // Open connections, idle and checked out
+    private boolean closed = false;
+
+    // Pool metrics, guarded by lock
+    private long borrowCount = 0;
+    private long totalWaitNanos = 0;
+    private long maxWaitNanos = 0;
+    private long evictedCount = 0;
+
+    /**
+     * Creates a pool. No connection is opened until the first call to borrow().
+     *
+     * @param url                      The JDBC URL of the database.
+     * @param user                     The database user.
+     * @param password                 The database password.
+     * @param maxSize                  The maximum number of open connections.
+     * @param minIdle                  The number of idle connections the evictor leaves open.
+     * @param idleTimeoutMillis        How long a connection may sit idle before it is closed.
+     * @param borrowTimeoutMillis      How long borrow() waits for a free connection.
+     * @param validationIntervalMillis Idle time after which a connection is validated before reuse.
+     * @param statementCacheSize       Prepared statements cached per connection.
+     */
+    public ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+            long idleTimeoutMillis, long borrowTimeoutMillis, long validationIntervalMillis,
+            int statementCacheSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = minIdle;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.statementCacheSize = statementCacheSize;
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks a connection out of the pool, opening a new one if the pool is not full.
+     *
+     * @return A connection that must be closed to return it to the pool.
+     * @throws SQLException if no connection became free within the borrow timeout,
+     *                      or a new connection could not be opened.
+     */
+    public PooledConnection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+
+        while (true) {
+            PooledConnection candidate = takeIdleOrReserve(deadline);
+            if (candidate == null) {
+                // A slot was reserved for us, so open a new physical connection
+                PooledConnection created = open();
+                recordBorrow(start);
+                return created;
+            }
+            if (isValid(candidate)) {
+                recordBorrow(start);
+                return candidate;
+            }
+            discard(candidate);
+        }
+    }
+
+    /**
+     * Takes the most recently used idle connection, or reserves a slot for a new one.
+     * Waits for a connection to be returned when the pool is exhausted.
+     *
+     * @return An idle connection, or null if the caller should open a new connection.
+     */
+    private PooledConnection takeIdleOrReserve(long deadline) throws SQLException {
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                PooledConnection pc = idle.pollFirst();
+                if (pc != null) {
+                    pc.setCheckedOut(true);
+                    return pc;
+                }
+                if (openCount < maxSize) {
+                    openCount++;
+                    return null;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new SQLException("Timed out waiting for a database connection ("
+                            + maxSize + " in use)");
+                }
+                returned.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        try {
+            Connection raw = DriverManager.getConnection(url, user, password);
+            PooledConnection pc = new PooledConnection(this, raw, statementCacheSize);
+            pc.setCheckedOut(true);
+            return pc;
+        } catch (SQLException e) {
+            // Give the reserved slot back so another caller can try
+            lock.lock();
+            try {
+                openCount--;
+                returned.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the validation query on a connection that has been idle for a while.
+     * Recently used connections are trusted without a round-trip.
+     */
+    private boolean isValid(PooledConnection pc) {
+        if (System.currentTimeMillis() - pc.getLastUsedMillis() < validationIntervalMillis) {
+            return true;
+        }
+        try (Statement stmt = pc.getConnection().createStatement()) {
+            stmt.execute(VALIDATION_QUERY);
+            pc.touch();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordBorrow(long start) {
+        long waited = System.nanoTime() - start;
+        lock.lock();
+        try {
+            borrowCount++;
+            totalWaitNanos += waited;
+            maxWaitNanos = Math.max(maxWaitNanos, waited);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a connection to the pool. Broken connections are closed instead, and any
+     * transaction left open by the caller is rolled back.
+     */
+    void release(PooledConnection pc) {
+        if (!pc.isCheckedOut()) {
+            return;     // Already returned
+        }
+        pc.getStatementCache().releaseAll();
+        boolean healthy;
+        try {
+            Connection raw = pc.getConnection();
+            healthy = !raw.isClosed();
+            if (healthy && !raw.getAutoCommit()) {
+                raw.rollback();
+                raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            healthy = false;
+        }
+        if (!healthy) {
+            discard(pc);
+            return;
+        }
+
+        boolean closeNow;
+        lock.lock();
+        try {
+            pc.setCheckedOut(false);
+            pc.touch();
+            closeNow = closed;
+            if (!closeNow) {
+                idle.addFirst(pc);
+            } else {
+                openCount--;
+            }
+            returned.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (closeNow) {
+            closeQuietly(pc);
+        }
+    }
+
+    private void discard(PooledConnection pc) {
+        lock.lock();
+        try {
+            pc.setCheckedOut(false);
+            openCount--;
+            evictedCount++;
+            returned.signal();
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(pc);
+    }
+
+    /**
+     * Closes connections that have been idle longer than the idle timeout,
+     * keeping at least minIdle connections open.
+     */
+    private void evictIdle() {
+        List<PooledConnection> expired = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            // The least recently used connections are at the tail of the deque
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minIdle) {
+                PooledConnection pc = it.next();
+                if (now - pc.getLastUsedMillis() < idleTimeoutMillis) {
+                    break;
+                }
+                it.remove();
+                openCount--;
+                evictedCount++;
+                expired.add(pc);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (PooledConnection pc : expired) {
+            closeQuietly(pc);
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the evictor. Connections that are still
+     * checked out are closed when they are returned.
+     */
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            openCount -= idle.size();
+            idle.clear();
+            returned.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        evictor.shutdownNow();
+        for (PooledConnection pc : toClose) {
+            closeQuietly(pc);
+        }
+    }
+
+    private void closeQuietly(PooledConnection pc) {
+        try {
+            pc.getConnection().close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    //================================================================================
+    // Pool metrics
+    //================================================================================
+
+    /** Returns the number of connections currently checked out. */
+    public int getActiveCount() {
+        lock.lock();
+        try {
+            return openCount - idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns the number of open connections waiting in the pool. */
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns how many times a connection has been checked out. */
+    public long getBorrowCount() {
+        lock.lock();
+        try {
+            return borrowCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns the average time callers waited in borrow(), in milliseconds. */
+    public double getAverageWaitMillis() {
+        lock.lock();
+        try {
+            return borrowCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns the longest time a caller waited in borrow(), in milliseconds. */
+    public double getMaxWaitMillis() {
+        lock.lock();
+        try {
+            return maxWaitNanos / 1_000_000.0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns the number of connections closed because they were idle or broken. */
+    public long getEvictedCount() {
+        lock.lock();
+        try {
+            return evictedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return String.format("ConnectionPool[active=%d, idle=%d, max=%d, borrows=%d, "
+                    + "avgWait=%.3fms, maxWait=%.3fms, evicted=%d, statementHitRate=%.2f]",
+                    openCount - idle.size(), idle.size(), maxSize, borrowCount,
+                    borrowCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrowCount,
+                    maxWaitNanos / 1_000_000.0, evictedCount, StatementCache.getTotalHitRate());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package databasePart1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * The DatabaseConfig class decides where the database lives and how H2 stores it.
+ * <p>
+ * Settings start from a named profile and can be overridden one by one, first from a
+ * properties file and then from system properties with the same keys. The file is
+ * {@code database.properties} in the working directory, or the file named by the
+ * {@code db.config} system property. The profiles are:
+ * </p>
+ * <ul>
+ * <li>{@code desktop} (the default): the embedded file {@code ~/FoundationDatabase} with
+ * {@code AUTO_SERVER}, so a second copy of the application connects to the first one
+ * over TCP instead of failing on the file lock.</li>
+ * <li>{@code lab-server}: every client connects to one H2 TCP server, by default at
+ * {@code localhost:9092}; set {@code db.server} to the server's host and port.</li>
+ * <li>{@code test}: a private in-memory database that disappears when the JVM exits.</li>
+ * </ul>
+ * <p>
+ * The keys are {@code db.profile}, {@code db.mode} (embedded, server or memory),
+ * {@code db.path}, {@code db.server}, {@code db.user}, {@code db.password},
+ * {@code db.cacheSize} (KB), {@code db.writeDelay} (ms), {@code db.autoServer},
+ * {@code db.fileLock} (FILE, SOCKET or NO), {@code db.compress} and {@code db.url}, which
+ * replaces the generated URL entirely. See README.md for examples.
+ * </p>
+ */
+public class DatabaseConfig {
+    public static final String CONFIG_FILE_PROPERTY = "db.config";
+    public static final String DEFAULT_CONFIG_FILE = "database.properties";
+    public static final String DEFAULT_PROFILE = "desktop";
+    public static final String DEFAULT_PATH = "~/FoundationDatabase";
+
+    /**
+     * How the application reaches the database.
+     */
+    public enum Mode {
+        /** The application opens the database file itself. */
+        EMBEDDED,
+        /** The application connects to an H2 TCP server. */
+        SERVER,
+        /** The database is held in memory and lost when the JVM exits. */
+        MEMORY
+    }
+
+    private String profile;
+    private Mode mode;
+    private String path;
+    private String server = "localhost:9092";
+    private String user = "sa";
+    private String password = "";
+    private int cacheSizeKb = 0;            // 0 keeps H2's default
+    private int writeDelayMillis = -1;      // -1 keeps H2's default
+    private boolean autoServer = false;
+    private String fileLock = null;         // null keeps H2's default
+    private boolean compress = false;
+    private String url = null;              // Replaces the generated URL when set
+
+    private DatabaseConfig() {
+    }
+
+    /**
+     * Returns the settings of a profile before any overrides.
+     *
+     * @param profile "desktop", "lab-server" or "test".
+     * @throws IllegalArgumentException if the profile is unknown.
+     */
+    public static DatabaseConfig preset(String profile) {
+        DatabaseConfig config = new DatabaseConfig();
+        config.profile = profile;
+        switch (profile) {
+            case "desktop":
+                config.mode = Mode.EMBEDDED;
+                config.path = DEFAULT_PATH;
+                config.autoServer = true;
+                config.cacheSizeKb = 32 * 1024;
+                break;
+            case "lab-server":
+                config.mode = Mode.SERVER;
+                config.path = DEFAULT_PATH;
+                break;
+            case "test":
+                config.mode = Mode.MEMORY;
+                config.path = "FoundationTest";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown database profile: " + profile
+                        + " (use desktop, lab-server or test)");
+        }
+        return config;
+    }
+
+    /**
+     * Reads the settings from the properties file, if there is one, and the system properties.
+     *
+     * @throws IllegalArgumentException if the file cannot be read or a setting is invalid.
+     */
+    public static DatabaseConfig load() {
+        Properties properties = new Properties();
+        Path file = Path.of(System.getProperty(CONFIG_FILE_PROPERTY, DEFAULT_CONFIG_FILE));
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Cannot read database settings from " + file, e);
+            }
+        } else if (System.getProperty(CONFIG_FILE_PROPERTY) != null) {
+            throw new IllegalArgumentException("Database settings file not found: " + file);
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("db.")) {
+                properties.setProperty(key, System.getProperty(key));
+            }
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * Builds the settings from a profile and the overrides in a set of properties.
+     *
+     * @throws IllegalArgumentException if a setting is invalid.
+     */
+    public static DatabaseConfig fromProperties(Properties properties) {
+        DatabaseConfig config = preset(properties.getProperty("db.profile", DEFAULT_PROFILE).trim());
+        String value;
+        if ((value = properties.getProperty("db.mode")) != null) {
+            try {
+                config.mode = Mode.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("db.mode must be embedded, server or memory: " + value);
+            }
+        }
+        if ((value = properties.getProperty("db.path")) != null) config.path = value.trim();
+        if ((value = properties.getProperty("db.server")) != null) config.server = value.trim();
+        if ((value = properties.getProperty("db.user")) != null) config.user = value;
+        if ((value = properties.getProperty("db.password")) != null) config.password = value;
+        if ((value = properties.getProperty("db.cacheSize")) != null) config.cacheSizeKb = parseInt("db.cacheSize", value);
+        if ((value = properties.getProperty("db.writeDelay")) != null) config.writeDelayMillis = parseInt("db.writeDelay", value);
+        if ((value = properties.getProperty("db.autoServer")) != null) config.autoServer = Boolean.parseBoolean(value.trim());
+        if ((value = properties.getProperty("db.compress")) != null) config.compress = Boolean.parseBoolean(value.trim());
+        if ((value = properties.getProperty("db.fileLock")) != null) {
+            config.fileLock = value.trim().toUpperCase();
+            if (!config.fileLock.matches("FILE|SOCKET|NO")) {
+                throw new IllegalArgumentException("db.fileLock must be FILE, SOCKET or NO: " + value);
+            }
+        }
+        if ((value = properties.getProperty("db.url")) != null && !value.isBlank()) config.url = value.trim();
+        return config;
+    }
+
+    private static int parseInt(String key, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a whole number: " + value);
+        }
+    }
+
+    /**
+     * Returns the JDBC URL for these settings.
+     */
+    public String getUrl() {
+        if (url != null) {
+            return url;
+        }
+        StringBuilder sb = new StringBuilder("jdbc:h2:");
+        switch (mode) {
+            case MEMORY:
+                // Keep the database while the pool has no open connections
+                sb.append("mem:").append(path).append(";DB_CLOSE_DELAY=-1");
+                break;
+            case SERVER:
+                sb.append("tcp://").append(server).append('/').append(path);
+                break;
+            default:
+                sb.append(path);
+                if (autoServer) sb.append(";AUTO_SERVER=TRUE");
+                if (fileLock != null) sb.append(";FILE_LOCK=").append(fileLock);
+                break;
+        }
+        if (cacheSizeKb > 0) sb.append(";CACHE_SIZE=").append(cacheSizeKb);
+        if (writeDelayMillis >= 0 && mode != Mode.MEMORY) sb.append(";WRITE_DELAY=").append(writeDelayMillis);
+        if (compress && mode != Mode.MEMORY) sb.append(";COMPRESS=TRUE");
+        return sb.toString();
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String toString() {
+        return "DatabaseConfig[profile=" + profile + ", url=" + getUrl() + ", user=" + user + "]";
+    }
+}
@@ -1,16 +1,34 @@
 package databasePart1;
 
 import java.sql.*;
-import java.util.UUID;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.security.SecureRandom;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import application.User;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import application.Question;
+import application.QuestionStats;
 import application.Answer;
+import application.TextIndex;
 
 /**
  * The DatabaseHelper class is responsible for managing the connection to the database,
@@ -18,51 +36,600 @@ import application.Answer;
  */
 public class DatabaseHelper {
 
-    // JDBC driver name and database URL 
+    // JDBC driver name; the URL and credentials come from DatabaseConfig
     static final String JDBC_DRIVER = "org.h2.Driver";   
-    static final String DB_URL = "jdbc:h2:~/FoundationDatabase";  
 
-    // Database credentials 
-    static final String USER = "sa"; 
-    static final String PASS = ""; 
+    // Connection pool settings
+    static final int POOL_MAX_SIZE = 10;
+    static final int POOL_MIN_IDLE = 1;
+    static final long POOL_IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000;
+    static final long POOL_BORROW_TIMEOUT_MILLIS = 10 * 1000;
+    static final long POOL_VALIDATION_INTERVAL_MILLIS = 30 * 1000;
+    static final int STATEMENT_CACHE_SIZE = 64;
+
+    // User profiles are cached in memory for role and name lookups
+    static final int USER_CACHE_SIZE = 500;
+    static final long USER_CACHE_TTL_MILLIS = 10 * 60 * 1000;
+
+    // Rows sent to the database per JDBC batch by registerAll
+    static final int IMPORT_BATCH_SIZE = 500;
+
+    // Rows fetched per round trip by the streaming reads unless the caller chooses
+    public static final int STREAM_FETCH_SIZE = 1000;
+
+    // Transactions that hit a lock timeout, deadlock or concurrent update are retried
+    static final int TX_MAX_ATTEMPTS = 5;
+    static final long TX_RETRY_BACKOFF_MILLIS = 50;
+
+    // Most invitation codes generated in one call, and how often used or expired codes are purged
+    public static final int INVITATION_BATCH_MAX = 10000;
+    static final long INVITATION_PURGE_INTERVAL_MINUTES = 60;
+
+    // How often changes made by other processes are read from the change log, and how
+    // long log rows are kept
+    static final long CHANGE_POLL_INTERVAL_MILLIS = 1000;
+    static final long CHANGE_LOG_RETENTION_MINUTES = 24 * 60;
+
+    // Question and answer IDs are drawn from sequences in blocks of this size
+    static final int ID_BLOCK_SIZE = 10;
+
+    // Number of body characters returned for each row of a question page
+    public static final int QUESTION_PREVIEW_LENGTH = 120;
+    // Columns of a question row that only carries a preview of the body text
+    private static final String QUESTION_PREVIEW_SELECT =
+        "SELECT questionID, postedBy, dateCreated, resolvedStatus, acceptedAnsID, newMessagesCount, "
+        + "CASE WHEN LENGTH(bodyText) > " + QUESTION_PREVIEW_LENGTH
+        + " THEN LEFT(bodyText, " + QUESTION_PREVIEW_LENGTH + ") || '...' ELSE bodyText END AS bodyPreview "
+        + "FROM Questions ";
+    // Answer count and unread count per question; the caller adds the WHERE clause
+    private static final String QUESTION_STATS_SELECT =
+        "SELECT q.questionID, q.newMessagesCount, COUNT(a.answerID) AS answerCount "
+        + "FROM Questions q LEFT JOIN Answers a ON a.questionID = q.questionID ";
+    private static final String QUESTION_STATS_GROUP = "GROUP BY q.questionID, q.newMessagesCount";
+
+    private static final IdAllocator questionIds = new IdAllocator("question_seq", ID_BLOCK_SIZE);
+    private static final IdAllocator answerIds = new IdAllocator("answer_seq", ID_BLOCK_SIZE);
+
+    private static final String INSERT_USER =
+        "INSERT INTO cse360users (userName, password, role, firstName, lastName, email) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Marks an invitation code as used and returns its role in one statement, so two
+    // sessions can never both redeem the same code; no row means the code is not valid
+    private static final String REDEEM_INVITATION_CODE = "SELECT role FROM FINAL TABLE ("
+        + "UPDATE InvitationCodes SET isUsed = TRUE WHERE code = ? AND isUsed = FALSE "
+        + "AND (expiresAt IS NULL OR expiresAt > CURRENT_TIMESTAMP))";
+
+    private static final String UNIQUE_VIOLATION = "23505";   // SQLSTATE for a duplicate key
+
+    // Full-text indexes over question and answer bodies. They are filled from the
+    // database on the first search and then kept up to date by the insert, update and
+    // delete methods below.
+    private static final TextIndex questionIndex = new TextIndex();
+    private static final TextIndex answerIndex = new TextIndex();
+    private static final Map<Integer, Integer> answerQuestionIds = new ConcurrentHashMap<>();
+    private static volatile boolean searchIndexLoaded = false;
+
+    private static final UserCache userCache = new UserCache(USER_CACHE_SIZE, USER_CACHE_TTL_MILLIS);
+
+    // Told about every committed question, answer, feedback and user change; see addChangeListener
+    private static final List<Consumer<ChangeEvent>> changeListeners = new CopyOnWriteArrayList<>();
+    private static final ChangeFeed changeFeed = new ChangeFeed();
+
+    // One pool is shared by every DatabaseHelper, so pages that create their own
+    // helper reuse the same connections instead of opening new ones.
+    private static ConnectionPool pool = null;
+
+    // Where the database lives; read from database.properties and db.* system properties
+    // when the pool is first created, unless configure() was called before
+    private static DatabaseConfig config = null;
+
+    // Ordered schema changes. Add new steps at the end with the next version number;
+    // never edit a step that has already shipped.
+    private static final SchemaMigrations migrations = new SchemaMigrations()
+        .add(1, "Create user, invitation, question, answer and feedback tables",
+            DatabaseHelper::createTables)
+        .add(2, "Sequences for question and answer IDs", statement -> {
+            IdAllocator.createSequence(statement, "question_seq", "Questions", "questionID", ID_BLOCK_SIZE);
+            IdAllocator.createSequence(statement, "answer_seq", "Answers", "answerID", ID_BLOCK_SIZE);
+        })
+        .add(3, "Indexes for inbox and per-author lookups", statement -> {
+            // Answers(questionID), Feedback(questionID) and Feedback(parentID) already get an
+            // index from their foreign keys, which getAnswersForQuestion and insertReply use.
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_feedback_sent_to ON Feedback(sentTo, id)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_questions_posted_by ON Questions(postedBy)");
+        })
+        .add(4, "Invitation expiry, code sequence and code key", statement -> {
+            statement.execute("ALTER TABLE InvitationCodes ADD COLUMN IF NOT EXISTS expiresAt TIMESTAMP");
+            statement.execute("CREATE SEQUENCE IF NOT EXISTS invitation_seq START WITH 1");
+            statement.execute("CREATE TABLE IF NOT EXISTS AppSettings ("
+                    + "name VARCHAR(64) PRIMARY KEY, "
+                    + "settingValue VARCHAR(255))");
+            statement.execute("INSERT INTO AppSettings (name, settingValue) SELECT 'invitationKey', '"
+                    + new SecureRandom().nextLong() + "' WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM AppSettings WHERE name = 'invitationKey')");
+        })
+        .add(5, "Change log shared between processes", ChangeFeed::createTable);
+
+    // Turns invitation_seq values into codes; loaded with the per-database key on first use
+    private static volatile InvitationCodeGenerator codeGenerator = null;
+
+    // Runs the periodic invitation purge while the pool is open
+    private static ScheduledExecutorService maintenance = null;
+
+    // The transaction open on the current thread, if any; see inTransaction
+    private static final ThreadLocal<Transaction> currentTransaction = new ThreadLocal<>();
+
+    /**
+     * A unit of work run by {@link DatabaseHelper#inTransaction(Work)}.
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run(DatabaseHelper tx) throws SQLException;
+    }
+
+    /**
+     * The connection of an open transaction and the in-memory updates to make once it commits.
+     */
+    private static class Transaction {
+        final PooledConnection connection;
+        final List<Runnable> afterCommit = new ArrayList<>();
+
+        Transaction(PooledConnection connection) {
+            this.connection = connection;
+        }
+    }
 
-    private Connection connection = null;
-    private Statement statement = null; 
- 
     /**
-     * Connects to the database and creates the necessary tables.
+     * Connects to the database and creates or upgrades the necessary tables.
      */
     public void connectToDatabase() throws SQLException {
+        initializePool();
+    }
+
+    /**
+     * Creates the shared connection pool and migrates the schema the first time it is called.
+     */
+    private static synchronized void initializePool() throws SQLException {
+        if (pool != null) {
+            return;
+        }
         try {
             // Load the JDBC driver
             Class.forName(JDBC_DRIVER); 
-            System.out.println("Connecting to database...");
-            connection = DriverManager.getConnection(DB_URL, USER, PASS);
-            statement = connection.createStatement(); 
-            // If you want to reset database just uncomment the line below
-            //statement.execute("DROP ALL OBJECTS");
+            if (config == null) {
+                config = DatabaseConfig.load();
+            }
+            System.out.println("Connecting to database (" + config.getProfile() + ": " + config.getUrl() + ")...");
+            pool = new ConnectionPool(config.getUrl(), config.getUser(), config.getPassword(), POOL_MAX_SIZE, POOL_MIN_IDLE,
+                    POOL_IDLE_TIMEOUT_MILLIS, POOL_BORROW_TIMEOUT_MILLIS, POOL_VALIDATION_INTERVAL_MILLIS,
+                    STATEMENT_CACHE_SIZE);
+            try (PooledConnection connection = pool.borrow()) {
+                // If you want to reset database just uncomment the lines below
+                //try (Statement statement = connection.createStatement()) {
+                //    statement.execute("DROP ALL OBJECTS");
+                //}
 
-            createTables();  // Create the necessary tables if they don't exist
+                migrations.migrate(connection);  // Create or upgrade the tables
+                changeFeed.start(connection);
+            }
+            maintenance = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "db-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            });
+            maintenance.scheduleWithFixedDelay(DatabaseHelper::purgeInBackground, 1,
+                    INVITATION_PURGE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+            maintenance.scheduleWithFixedDelay(DatabaseHelper::pollInBackground, CHANGE_POLL_INTERVAL_MILLIS,
+                    CHANGE_POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
         } catch (ClassNotFoundException e) {
             System.err.println("JDBC Driver not found: " + e.getMessage());
         }
     }
 
     /**
-     * This method ensures that the database connection is open.
-     * If the connection is null or closed, it will attempt to reconnect.
+     * This method ensures that the connection pool is available.
+     * If it has not been created yet, it will attempt to connect.
      */
     public void ensureConnected() throws SQLException {
-        if (connection == null || connection.isClosed()) {
+        if (pool == null) {
             System.out.println("Reconnecting to database...");
             connectToDatabase();
         }
     }
 
     /**
-     * Creates the necessary tables if they do not exist.
+     * Checks a connection out of the shared pool. Closing the returned connection
+     * gives it back to the pool. Inside a transaction this returns the transaction's
+     * connection, which stays open until the transaction ends.
+     */
+    private PooledConnection getConnection() throws SQLException {
+        Transaction tx = currentTransaction.get();
+        if (tx != null) {
+            return tx.connection;
+        }
+        ensureConnected();
+        if (pool == null) {
+            throw new SQLException("Database driver is not available.");
+        }
+        return pool.borrow();
+    }
+
+    /**
+     * Reads one row of a result set into an object.
+     */
+    @FunctionalInterface
+    private interface RowReader<T> {
+        T read(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Runs a query and returns its rows as a stream that reads them from a forward-only
+     * cursor as it is consumed, so memory use does not grow with the table.
+     * <p>
+     * The session runs the query with H2's LAZY_QUERY_EXECUTION, so the database also
+     * produces rows as they are fetched instead of building the whole result first, and
+     * the fetch size sets how many rows a server connection sends per round trip.
+     * Closing the stream closes the result set, turns lazy execution off again and
+     * returns the connection to the pool; inside a transaction the connection stays with
+     * the transaction. An SQLException while reading rows is thrown as an
+     * {@link UncheckedSQLException}.
+     * </p>
+     */
+    private <T> Stream<T> streamRows(String query, int fetchSize, RowReader<T> reader) throws SQLException {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must be at least 1: " + fetchSize);
+        }
+        PooledConnection connection = getConnection();
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            setLazyQueryExecution(connection, true);
+            // Not taken from the statement cache, which would keep the fetch size
+            pstmt = connection.getConnection().prepareStatement(query,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize);
+            rs = pstmt.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                closeRows(connection, pstmt, rs);
+            } catch (UncheckedSQLException closeFailure) {
+                e.addSuppressed(closeFailure.getCause());
+            }
+            throw e;
+        }
+
+        ResultSet rows = rs;
+        PreparedStatement statement = pstmt;
+        Spliterator<T> cursor = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rows.next()) {
+                        return false;
+                    }
+                    action.accept(reader.read(rows));
+                    return true;
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(cursor, false).onClose(() -> closeRows(connection, statement, rows));
+    }
+
+    /**
+     * Closes what {@link #streamRows} opened, the result set first, and always releases
+     * the connection. The statement and result set may be null.
+     */
+    private static void closeRows(PooledConnection connection, Statement statement, ResultSet rs) {
+        try (connection; statement; rs) {
+            setLazyQueryExecution(connection, false);
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+    }
+
+    private static void setLazyQueryExecution(PooledConnection connection, boolean lazy) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "TRUE" : "FALSE"));
+        }
+    }
+
+    /**
+     * Chooses the database settings to use instead of loading them from the properties file
+     * and system properties. Takes effect the next time the pool is created, so call
+     * {@link #shutdownPool()} first to switch an open pool to another database.
+     */
+    public static synchronized void configure(DatabaseConfig databaseConfig) {
+        config = databaseConfig;
+    }
+
+    /**
+     * Returns the settings in use, or null if the pool has not been created yet.
+     */
+    public static synchronized DatabaseConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Returns the shared connection pool so its metrics can be inspected.
+     */
+    public static ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    /**
+     * Runs several operations as one transaction at READ COMMITTED isolation.
+     * 
+     * @see #inTransaction(int, Work)
+     */
+    public <T> T inTransaction(Work<T> work) throws SQLException {
+        return inTransaction(Connection.TRANSACTION_READ_COMMITTED, work);
+    }
+
+    /**
+     * Runs several operations as one transaction with a single commit.
+     * <p>
+     * Every DatabaseHelper call made inside the work, on this or any other helper, runs on
+     * the same connection, so either all of its changes are committed or none are. A call
+     * made inside the work that opens its own transaction joins this one instead. Search
+     * indexes and caches are only updated once the transaction commits.
+     * </p>
+     * <p>
+     * If the database reports a lock timeout, deadlock or concurrent update, everything is
+     * rolled back and the work is run again, up to TX_MAX_ATTEMPTS times, so the work must
+     * not have side effects outside the database.
+     * </p>
+     * 
+     * @param isolation One of the Connection.TRANSACTION_* levels; a joined transaction
+     *                  keeps the level of the outer one.
+     * @param work      The operations to run, given this helper to call.
+     * @return The work's result.
+     */
+    public <T> T inTransaction(int isolation, Work<T> work) throws SQLException {
+        if (currentTransaction.get() != null) {
+            return work.run(this);
+        }
+        for (int attempt = 1; ; attempt++) {
+            PooledConnection connection = getConnection();
+            Connection raw = connection.getConnection();
+            Transaction tx = new Transaction(connection);
+            int previousIsolation = raw.getTransactionIsolation();
+            boolean committed = false;
+            boolean retry = false;
+            T result = null;
+            try {
+                raw.setTransactionIsolation(isolation);
+                raw.setAutoCommit(false);
+                connection.setPinned(true);
+                currentTransaction.set(tx);
+                result = work.run(this);
+                raw.commit();
+                committed = true;
+            } catch (SQLException e) {
+                if (attempt >= TX_MAX_ATTEMPTS || !isRetryable(e)) {
+                    throw e;
+                }
+                System.out.println("Retrying transaction after: " + e.getMessage());
+                retry = true;
+            } finally {
+                currentTransaction.remove();
+                connection.setPinned(false);
+                try {
+                    if (!committed) {
+                        raw.rollback();
+                    }
+                    raw.setAutoCommit(true);
+                    raw.setTransactionIsolation(previousIsolation);
+                } catch (SQLException e) {
+                    // The pool discards a connection it cannot reset
+                }
+                connection.close();
+            }
+            if (retry) {
+                backOff(attempt);
+                continue;
+            }
+            for (Runnable action : tx.afterCommit) {
+                action.run();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns true if a failed transaction may succeed when run again.
+     */
+    private static boolean isRetryable(SQLException e) {
+        switch (e.getErrorCode()) {
+            case 50200:     // Lock timeout
+            case 40001:     // Deadlock
+            case 90131:     // Concurrent update of the same row
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Waits before a retry, longer after each attempt and with some jitter so transactions
+     * that collided do not retry in step.
+     */
+    private static void backOff(int attempt) {
+        try {
+            long base = TX_RETRY_BACKOFF_MILLIS * attempt;
+            Thread.sleep(base / 2 + ThreadLocalRandom.current().nextLong(base));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns true if the current thread is inside {@link #inTransaction(Work)}.
+     */
+    public static boolean isInTransaction() {
+        return currentTransaction.get() != null;
+    }
+
+    /**
+     * Runs an in-memory update now, or when the current transaction commits. Updates for
+     * a transaction that rolls back are dropped, so indexes never show uncommitted rows.
+     */
+    private static void afterCommit(Runnable action) {
+        Transaction tx = currentTransaction.get();
+        if (tx == null) {
+            action.run();
+        } else {
+            tx.afterCommit.add(action);
+        }
+    }
+
+    /**
+     * Drops a user's cached profile now and again when the current transaction commits,
+     * so no other thread can cache the old profile in between.
+     */
+    private static void invalidateUser(String userName) {
+        userCache.invalidate(userName);
+        if (isInTransaction()) {
+            afterCommit(() -> userCache.invalidate(userName));
+        }
+    }
+
+    /**
+     * Registers a listener for committed changes to questions, answers, feedback and users.
+     * <p>
+     * Listeners are called on the thread that made the change, after it commits; changes
+     * rolled back are never reported. Changes made by other processes are reported on the
+     * maintenance thread within about CHANGE_POLL_INTERVAL_MILLIS. A listener that updates
+     * the screen must hand the event to the JavaFX thread itself, and should be removed
+     * when its page closes.
+     * </p>
+     */
+    public static void addChangeListener(Consumer<ChangeEvent> listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Stops sending change events to a listener.
+     */
+    public static void removeChangeListener(Consumer<ChangeEvent> listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Writes a change to the change log and tells the change listeners about it once the
+     * current transaction commits.
+     */
+    private void publishChange(ChangeEvent.Entity entity, ChangeEvent.Op op, int id, int questionID,
+                               String userName) throws SQLException {
+        List<ChangeEvent> events = new ArrayList<>(1);
+        events.add(new ChangeEvent(entity, op, id, questionID, userName));
+        publishChanges(events);
+    }
+
+    /**
+     * Writes changes to the change log in one batch and tells the change listeners about
+     * them once the current transaction commits. Writers call it inside the transaction
+     * that makes the change, so the change and its log rows commit together or not at all.
+     */
+    private void publishChanges(List<ChangeEvent> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        try (PooledConnection connection = getConnection()) {
+            changeFeed.record(connection, events);
+        }
+        afterCommit(() -> events.forEach(DatabaseHelper::fireChange));
+    }
+
+    private static void fireChange(ChangeEvent event) {
+        for (Consumer<ChangeEvent> listener : changeListeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                // A failing listener must not affect the change or the other listeners
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Reads the changes other processes have committed since the last poll, updates the
+     * search indexes and user cache to match, and tells the change listeners. This runs
+     * in the background every CHANGE_POLL_INTERVAL_MILLIS and can be called to catch up
+     * immediately.
+     *
+     * @return The number of changes read.
+     */
+    public int pollChanges() throws SQLException {
+        List<ChangeEvent> events;
+        try (PooledConnection connection = getConnection()) {
+            events = changeFeed.poll(connection);
+        }
+        for (ChangeEvent event : events) {
+            applyRemoteChange(event);
+            fireChange(event);
+        }
+        return events.size();
+    }
+
+    private static void pollInBackground() {
+        try {
+            new DatabaseHelper().pollChanges();
+        } catch (SQLException e) {
+            System.err.println("Change feed poll failed: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // Keep the scheduled poll running
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Brings the in-memory copies in this process up to date with a change made by
+     * another process.
+     */
+    private void applyRemoteChange(ChangeEvent event) throws SQLException {
+        switch (event.getEntity()) {
+            case USER:
+                userCache.invalidate(event.getUserName());
+                break;
+            case QUESTION:
+                if (!searchIndexLoaded) {
+                    break;      // The index reads the current rows when it is loaded
+                }
+                if (event.getOp() == ChangeEvent.Op.DELETE) {
+                    unindexQuestion(event.getId());
+                } else {
+                    Question question = getQuestionByID(event.getId());
+                    if (question != null) {
+                        questionIndex.put(question.getQuestionID(), question.getBodyText());
+                    }
+                }
+                break;
+            case ANSWER:
+                if (!searchIndexLoaded) {
+                    break;
+                }
+                if (event.getOp() == ChangeEvent.Op.DELETE) {
+                    answerIndex.remove(event.getId());
+                    answerQuestionIds.remove(event.getId());
+                } else {
+                    Answer answer = getAnswerByID(event.getId());
+                    if (answer != null) {
+                        indexAnswer(answer.getAnsID(), answer.getQuestionID(), answer.getBodyText());
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Creates the necessary tables if they do not exist. This is schema version 1.
      */
-    private void createTables() throws SQLException {
+    private static void createTables(Statement statement) throws SQLException {
         String userTable = "CREATE TABLE IF NOT EXISTS cse360users ("
                 + "id INT AUTO_INCREMENT PRIMARY KEY, "
                 + "userName VARCHAR(255) UNIQUE, "
@@ -114,8 +681,6 @@ public class DatabaseHelper {
                 + "FOREIGN KEY (parentID) REFERENCES Feedback(id) ON DELETE CASCADE"
                 + ")";
         statement.execute(feedbackTable);
-
-        
     }
 
 
@@ -123,12 +688,13 @@ public class DatabaseHelper {
      * Checks if the database is empty.
      */
     public boolean isDatabaseEmpty() throws SQLException {
-        // Ensure connection is open before querying
-        ensureConnected();
         String query = "SELECT COUNT(*) AS count FROM cse360users";
-        ResultSet resultSet = statement.executeQuery(query);
-        if (resultSet.next()) {
-            return resultSet.getInt("count") == 0;
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query);
+             ResultSet resultSet = pstmt.executeQuery()) {
+            if (resultSet.next()) {
+                return resultSet.getInt("count") == 0;
+            }
         }
         return true;
     }
@@ -137,31 +703,152 @@ public class DatabaseHelper {
      * Registers a new user in the database.
      */
     public void register(User user) throws SQLException {
-        // Ensure connection is open before executing any operation
-        ensureConnected();
-        String insertUser = "INSERT INTO cse360users (userName, password, role, firstName, lastName, email) VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
-            pstmt.setString(1, user.getUserName());
-            pstmt.setString(2, user.getPassword());
-            pstmt.setString(3, user.getRole());
-            pstmt.setString(4, user.getfirstName()); // or getFirstName() if renamed
-            pstmt.setString(5, user.getlastName());  // or getLastName() if renamed
-            pstmt.setString(6, user.getemail());     // or getEmail() if renamed
-            pstmt.executeUpdate();
+        try {
+            // The user and its change log row commit together
+            inTransaction(tx -> {
+                try (PooledConnection connection = getConnection();
+                     PreparedStatement pstmt = connection.prepareStatement(INSERT_USER)) {
+                    pstmt.setString(1, user.getUserName());
+                    pstmt.setString(2, user.getPassword());
+                    pstmt.setString(3, user.getRole());
+                    pstmt.setString(4, user.getfirstName()); // or getFirstName() if renamed
+                    pstmt.setString(5, user.getlastName());  // or getLastName() if renamed
+                    pstmt.setString(6, user.getemail());     // or getEmail() if renamed
+                    pstmt.executeUpdate();
+                }
+                publishChange(ChangeEvent.Entity.USER, ChangeEvent.Op.INSERT, 0, -1, user.getUserName());
+                return null;
+            });
+        } finally {
+            invalidateUser(user.getUserName());
+        }
+    }
+
+    /**
+     * Registers many users in one transaction, sending the inserts in JDBC batches.
+     * <p>
+     * Users whose names are already taken are skipped and returned. If any insert fails,
+     * for example because another session registered one of the names in the meantime,
+     * nothing is written and the exception is thrown.
+     * </p>
+     * 
+     * @param users The users to register; names must be unique within the list.
+     * @return The names that already existed and were not registered.
+     */
+    public List<String> registerAll(List<User> users) throws SQLException {
+        List<String> taken = new ArrayList<>();
+        if (users.isEmpty()) {
+            return taken;
         }
+        String[] names = new String[users.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = users.get(i).getUserName();
+        }
+        String existing = "SELECT userName FROM cse360users WHERE userName = ANY(?)";
+        Set<String> skip = new HashSet<>();
+        try {
+            inTransaction(tx -> {
+                try (PooledConnection connection = getConnection()) {
+                    // The work may be run again after a lock timeout
+                    taken.clear();
+                    skip.clear();
+                    try (PreparedStatement pstmt = connection.prepareStatement(existing)) {
+                        pstmt.setObject(1, names);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                skip.add(rs.getString(1));
+                            }
+                        }
+                    }
+                    try (PreparedStatement pstmt = connection.prepareStatement(INSERT_USER)) {
+                        int pending = 0;
+                        for (User user : users) {
+                            if (skip.contains(user.getUserName())) {
+                                taken.add(user.getUserName());
+                                continue;
+                            }
+                            pstmt.setString(1, user.getUserName());
+                            pstmt.setString(2, user.getPassword());
+                            pstmt.setString(3, user.getRole());
+                            pstmt.setString(4, user.getfirstName());
+                            pstmt.setString(5, user.getlastName());
+                            pstmt.setString(6, user.getemail());
+                            pstmt.addBatch();
+                            if (++pending == IMPORT_BATCH_SIZE) {
+                                pstmt.executeBatch();
+                                pending = 0;
+                            }
+                        }
+                        if (pending > 0) {
+                            pstmt.executeBatch();
+                        }
+                    }
+                }
+                List<ChangeEvent> events = new ArrayList<>();
+                for (User user : users) {
+                    if (!skip.contains(user.getUserName())) {
+                        events.add(new ChangeEvent(ChangeEvent.Entity.USER, ChangeEvent.Op.INSERT, 0, -1,
+                                user.getUserName()));
+                    }
+                }
+                publishChanges(events);
+                return null;
+            });
+        } finally {
+            for (String name : names) {
+                invalidateUser(name);
+            }
+        }
+        return taken;
     }
 
 
+    /**
+     * Checks a user's credentials and loads the account in one query.
+     * <p>
+     * A password made only of digits that matches the stored password is a one-time
+     * password set by an admin, and the result asks for a password reset instead of
+     * logging in.
+     * </p>
+     * 
+     * @param userName The user name entered on the login page.
+     * @param password The password entered on the login page.
+     * @return The outcome; on success it holds the user with role, name and email filled in.
+     */
+    public AuthResult authenticate(String userName, String password) throws SQLException {
+        String query = "SELECT password, role, firstName, lastName, email FROM cse360users WHERE userName = ?";
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, userName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return new AuthResult(AuthResult.Status.NO_SUCH_USER, null);
+                }
+                if (!password.equals(rs.getString("password"))) {
+                    return new AuthResult(AuthResult.Status.BAD_PASSWORD, null);
+                }
+                if (password.matches("[0-9]+")) {
+                    return new AuthResult(AuthResult.Status.OTP_RESET, null);
+                }
+                User user = new User(userName, password, rs.getString("role"),
+                        rs.getString("firstName"), rs.getString("lastName"), rs.getString("email"));
+                if (!isInTransaction()) {
+                    userCache.put(userName, new UserCache.Profile(user.getRole(),
+                            user.getfirstName(), user.getlastName(), user.getemail()));
+                }
+                return new AuthResult(AuthResult.Status.SUCCESS, user);
+            }
+        }
+    }
+
     /**
      * Validates a user's login credentials.
      */
     public boolean login(User user) throws SQLException {
-        // Ensure connection is open before executing any operation
-        ensureConnected();
-        
         // Modified query to only check username and password
         String query = "SELECT * FROM cse360users WHERE userName = ? AND password = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, user.getUserName());
             pstmt.setString(2, user.getPassword());
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -182,21 +869,7 @@ public class DatabaseHelper {
      */
     public boolean doesUserExist(String userName) {
         try {
-            // Ensure connection is open before executing any operation
-            ensureConnected();
-        } catch (SQLException e1) {
-            e1.printStackTrace();
-            return false;
-        }
-        
-        String query = "SELECT COUNT(*) FROM cse360users WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, userName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                // If the count is greater than 0, the user exists
-                return rs.getInt(1) > 0;
-            }
+            return getProfile(userName) != null;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -208,89 +881,239 @@ public class DatabaseHelper {
      */
     public String getUserRole(String userName) {
         try {
-            // Ensure connection is open before executing any operation
-            ensureConnected();
-        } catch (SQLException e1) {
-            e1.printStackTrace();
-            return null;
-        }
-        
-        String query = "SELECT role FROM cse360users WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, userName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("role"); // Return the role if user exists
+            UserCache.Profile profile = getProfile(userName);
+            if (profile != null) {
+                return profile.getRole(); // Return the role if user exists
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return null; // If no user exists or an error occurs
     }
+
+    /**
+     * Returns a user's cached profile, loading it from the database on a cache miss.
+     * 
+     * @return The profile, or null if the user does not exist.
+     */
+    private UserCache.Profile getProfile(String userName) throws SQLException {
+        UserCache.Lookup cached = userCache.get(userName);
+        if (cached.isFound()) {
+            return cached.getProfile();
+        }
+        String query = "SELECT role, firstName, lastName, email FROM cse360users WHERE userName = ?";
+        UserCache.Profile profile = null;
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, userName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    profile = new UserCache.Profile(rs.getString("role"), rs.getString("firstName"),
+                            rs.getString("lastName"), rs.getString("email"));
+                }
+            }
+        }
+        // A transaction may have read its own uncommitted changes, which must not be shared
+        if (!isInTransaction()) {
+            userCache.put(userName, profile);
+        }
+        return profile;
+    }
+
+    /**
+     * Returns the user profile cache so its hit rate can be inspected.
+     */
+    public static UserCache getUserCache() {
+        return userCache;
+    }
     
     /**
      * Generates a new invitation code with associated role and inserts it into the database.
      */
     public String generateInvitationCodeWithRole(String role) {
         try {
-            ensureConnected();
-            
-            String code = UUID.randomUUID().toString().substring(0, 4);
-            String query = "INSERT INTO InvitationCodes (code, role) VALUES (?, ?)";
-            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-                pstmt.setString(1, code);
-                pstmt.setString(2, role);
-                pstmt.executeUpdate();
-                return code;
-            }
+            return generateInvitationCodes(role, 1, null).get(0);
         } catch (SQLException e) {
             e.printStackTrace();
             return null;
         }
     }
-    
+
     /**
-     * Validates an invitation code and returns the associated role if valid.
+     * Generates a batch of invitation codes for a role in one transaction.
+     * <p>
+     * Each code comes from the next value of invitation_seq, scrambled by an
+     * {@link InvitationCodeGenerator}, so codes never collide with each other or with
+     * codes issued by another process, and no retry is ever needed.
+     * </p>
+     * 
+     * @param role      The roles the codes grant, such as "Student,Reviewer".
+     * @param count     How many codes to generate, from 1 to INVITATION_BATCH_MAX.
+     * @param expiresAt When the codes stop working, or null if they never expire.
+     * @return The new codes.
      */
-    public String validateInvitationCodeAndGetRole(String code) {
-        try {
-            ensureConnected();
-            
-            String query = "SELECT role FROM InvitationCodes WHERE code = ? AND isUsed = FALSE";
-            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-                pstmt.setString(1, code);
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    String role = rs.getString("role");
-                    markInvitationCodeAsUsed(code);
-                    return role;
+    public List<String> generateInvitationCodes(String role, int count, Timestamp expiresAt) throws SQLException {
+        if (count < 1 || count > INVITATION_BATCH_MAX) {
+            throw new IllegalArgumentException("Invitation code count must be between 1 and " + INVITATION_BATCH_MAX);
+        }
+        String nextValues = "SELECT NEXT VALUE FOR invitation_seq FROM SYSTEM_RANGE(1, ?)";
+        String insertCode = "INSERT INTO InvitationCodes (code, role, expiresAt) VALUES (?, ?, ?)";
+        return inTransaction(tx -> {
+            List<String> codes = new ArrayList<>(count);
+            try (PooledConnection connection = getConnection()) {
+                InvitationCodeGenerator generator = getCodeGenerator(connection);
+                try (PreparedStatement pstmt = connection.prepareStatement(nextValues)) {
+                    pstmt.setInt(1, count);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            codes.add(generator.code(rs.getLong(1)));
+                        }
+                    }
+                }
+                try (PreparedStatement pstmt = connection.prepareStatement(insertCode)) {
+                    for (String code : codes) {
+                        pstmt.setString(1, code);
+                        pstmt.setString(2, role);
+                        pstmt.setTimestamp(3, expiresAt);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
                 }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            return codes;
+        });
+    }
+
+    /**
+     * Returns the code generator, reading the database's key the first time.
+     */
+    private static InvitationCodeGenerator getCodeGenerator(PooledConnection connection) throws SQLException {
+        InvitationCodeGenerator generator = codeGenerator;
+        if (generator == null) {
+            String query = "SELECT settingValue FROM AppSettings WHERE name = 'invitationKey'";
+            try (PreparedStatement pstmt = connection.prepareStatement(query);
+                 ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("The invitation code key is missing from AppSettings");
+                }
+                generator = new InvitationCodeGenerator(Long.parseLong(rs.getString(1)));
+                codeGenerator = generator;
+            }
         }
-        return null;
+        return generator;
     }
-    
+
+    /**
+     * Deletes invitation codes that have been used or have expired.
+     * 
+     * @return The number of codes deleted.
+     */
+    public int purgeInvitationCodes() throws SQLException {
+        String query = "DELETE FROM InvitationCodes WHERE isUsed = TRUE OR expiresAt <= CURRENT_TIMESTAMP";
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
+            return pstmt.executeUpdate();
+        }
+    }
+
     /**
-     * Marks the invitation code as used in the database.
+     * Runs the periodic invitation purge on the maintenance thread.
      */
-    private void markInvitationCodeAsUsed(String code) {
+    private static void purgeInBackground() {
         try {
-            // Ensure connection is open before executing any operation
-            ensureConnected();
-        } catch (SQLException e1) {
-            e1.printStackTrace();
-            return;
+            DatabaseHelper helper = new DatabaseHelper();
+            int purged = helper.purgeInvitationCodes();
+            if (purged > 0) {
+                System.out.println("Purged " + purged + " used or expired invitation codes");
+            }
+            try (PooledConnection connection = helper.getConnection()) {
+                changeFeed.purge(connection, CHANGE_LOG_RETENTION_MINUTES);
+            }
+        } catch (SQLException e) {
+            System.err.println("Invitation purge failed: " + e.getMessage());
         }
-        
-        String query = "UPDATE InvitationCodes SET isUsed = TRUE WHERE code = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, code);
-            pstmt.executeUpdate();
+    }
+    
+    /**
+     * Validates an invitation code, marks it as used and returns the associated role if valid.
+     */
+    public String validateInvitationCodeAndGetRole(String code) {
+        try (PooledConnection connection = getConnection()) {
+            return redeemInvitationCode(connection, code);
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return null;
+    }
+
+    /**
+     * Marks an invitation code as used and returns its role, or null if the code does not
+     * exist, has expired or was already used.
+     */
+    private static String redeemInvitationCode(PooledConnection connection, String code) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(REDEEM_INVITATION_CODE)) {
+            pstmt.setString(1, code);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString("role") : null;
+            }
+        }
+    }
+
+    /**
+     * Redeems an invitation code and creates the account it grants in one transaction.
+     * <p>
+     * The code is claimed with a single conditional update, so when several people sign up
+     * with the same code at once exactly one of them gets it. The user name is checked
+     * first, and if it is taken, even by a sign-up that commits in the meantime, the code
+     * stays available.
+     * </p>
+     * 
+     * @return The outcome; on success it holds the new user with the code's roles.
+     */
+    public RegistrationResult registerWithInvitation(String code, String userName, String password,
+            String firstName, String lastName, String email) throws SQLException {
+        String existing = "SELECT 1 FROM cse360users WHERE userName = ?";
+        boolean joined = isInTransaction();
+        try {
+            return inTransaction(tx -> {
+                try (PooledConnection connection = getConnection()) {
+                    // Check the name first so a taken name never consumes the code
+                    try (PreparedStatement pstmt = connection.prepareStatement(existing)) {
+                        pstmt.setString(1, userName);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            if (rs.next()) {
+                                return new RegistrationResult(RegistrationResult.Status.NAME_TAKEN, null);
+                            }
+                        }
+                    }
+                    String role = redeemInvitationCode(connection, code);
+                    if (role == null) {
+                        return new RegistrationResult(RegistrationResult.Status.INVALID_CODE, null);
+                    }
+                    User user = new User(userName, password, role, firstName, lastName, email);
+                    try (PreparedStatement pstmt = connection.prepareStatement(INSERT_USER)) {
+                        pstmt.setString(1, userName);
+                        pstmt.setString(2, password);
+                        pstmt.setString(3, role);
+                        pstmt.setString(4, firstName);
+                        pstmt.setString(5, lastName);
+                        pstmt.setString(6, email);
+                        pstmt.executeUpdate();
+                    }
+                    publishChange(ChangeEvent.Entity.USER, ChangeEvent.Op.INSERT, 0, -1, userName);
+                    return new RegistrationResult(RegistrationResult.Status.SUCCESS, user);
+                }
+            });
+        } catch (SQLException e) {
+            // Someone else registered the same name after our check; the redemption was
+            // rolled back with the insert unless an outer transaction is still open
+            if (!joined && UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                return new RegistrationResult(RegistrationResult.Status.NAME_TAKEN, null);
+            }
+            throw e;
+        } finally {
+            invalidateUser(userName);
+        }
     }
     
     /**
@@ -299,27 +1122,54 @@ public class DatabaseHelper {
      * @throws SQLException if a database access error occurs.
      */
     public ObservableList<User> getAllUsers() throws SQLException {
-        // Ensure we are connected to the database.
-        ensureConnected();
         ObservableList<User> userList = FXCollections.observableArrayList();
         // Retrieve userName, role, firstName, lastName, and email.
         String query = "SELECT userName, role, firstName, lastName, email FROM cse360users";
-        try (PreparedStatement pstmt = connection.prepareStatement(query);
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
-                String userName = rs.getString("userName");
-                String role = rs.getString("role");
-                String firstName = rs.getString("firstName");
-                String lastName = rs.getString("lastName");
-                String email = rs.getString("email");
-                // Create a User object. We use an empty string for the password.
-                User user = new User(userName, "", role, firstName, lastName, email);
-                userList.add(user);
+                userList.add(readUser(rs));
             }
         }
         return userList;
     }
 
+    /**
+     * Streams every user, ordered by user name, reading STREAM_FETCH_SIZE rows at a time.
+     *
+     * @see #streamAllUsers(int)
+     */
+    public Stream<User> streamAllUsers() throws SQLException {
+        return streamAllUsers(STREAM_FETCH_SIZE);
+    }
+
+    /**
+     * Streams every user, ordered by user name, without loading them all into memory.
+     * The stream holds a pooled connection until it is closed, so use it in a
+     * try-with-resources block.
+     *
+     * @param fetchSize The number of rows to fetch from the database at a time.
+     */
+    public Stream<User> streamAllUsers(int fetchSize) throws SQLException {
+        String query = "SELECT userName, role, firstName, lastName, email FROM cse360users ORDER BY userName";
+        return streamRows(query, fetchSize, DatabaseHelper::readUser);
+    }
+
+    /**
+     * Builds a User from the current row of a result set. The password is left empty.
+     */
+    private static User readUser(ResultSet rs) throws SQLException {
+        return new User(
+            rs.getString("userName"),
+            "",
+            rs.getString("role"),
+            rs.getString("firstName"),
+            rs.getString("lastName"),
+            rs.getString("email")
+        );
+    }
+
     
     /**
      * Deletes a user from the database based on their userName.
@@ -330,48 +1180,56 @@ public class DatabaseHelper {
      * @return true if a user was deleted, false otherwise.
      */
     public boolean deleteUser(String userName) {
-        try {
-            ensureConnected();
-            // Prevent deletion if the user is an admin
-            String role = getUserRole(userName);
-            if (role != null && role.equalsIgnoreCase("admin")) {
-                System.out.println("Cannot delete an admin user.");
-                return false;
-            }
-        } catch (SQLException e1) {
-            e1.printStackTrace();
+        // Prevent deletion if the user is an admin
+        String role = getUserRole(userName);
+        if (role != null && role.equalsIgnoreCase("admin")) {
+            System.out.println("Cannot delete an admin user.");
             return false;
         }
         
         String query = "DELETE FROM cse360users WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, userName);
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+        try {
+            // The deletion and its change log row commit together
+            return inTransaction(tx -> {
+                int rowsAffected;
+                try (PooledConnection connection = getConnection();
+                     PreparedStatement pstmt = connection.prepareStatement(query)) {
+                    pstmt.setString(1, userName);
+                    rowsAffected = pstmt.executeUpdate();
+                }
+                if (rowsAffected > 0) {
+                    publishChange(ChangeEvent.Entity.USER, ChangeEvent.Op.DELETE, 0, -1, userName);
+                }
+                return rowsAffected > 0;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
+        } finally {
+            invalidateUser(userName);
         }
     }
     /**
      * Updates the users password.
      */
     public void updatePassword(String username, String newPassword) throws SQLException {
-        ensureConnected();
         String query = "UPDATE cse360users SET password = ? WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, newPassword);
             pstmt.setString(2, username);
             pstmt.executeUpdate();
+        } finally {
+            invalidateUser(username);
         }
     }
     /**
      * Updates the users password.
      */
     public boolean isOTPValid(String username, String otp) throws SQLException {
-        ensureConnected();
         String query = "SELECT COUNT(*) FROM cse360users WHERE userName = ? AND password = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, username);
             pstmt.setString(2, otp);
             ResultSet rs = pstmt.executeQuery();
@@ -383,62 +1241,59 @@ public class DatabaseHelper {
     }
     
     /**
-     * Closes the database connection and statement.
+     * Releases this helper's hold on the database.
+     * <p>
+     * Every method returns its connection to the shared pool as soon as it finishes, so
+     * there is nothing left open here. The pool itself stays up for the other pages and
+     * is closed by {@link #shutdownPool()} when the application exits.
+     * </p>
      */
     public void closeConnection() {
-        try { 
-            if (statement != null) {
-                statement.close(); 
-            }
-        } catch (SQLException se2) { 
-            se2.printStackTrace();
-        } 
-        try { 
-            if (connection != null) {
-                connection.close(); 
-            }
-        } catch (SQLException se) { 
-            se.printStackTrace(); 
-        } 
+        // Connections are borrowed per call and already returned to the pool
     }
 
-    public String getUserFirstName(String userName) throws SQLException {
-        ensureConnected();
-        String query = "SELECT firstName FROM cse360users WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, userName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("firstName");
+    /**
+     * Closes every pooled connection. Called once when the application exits.
+     * <p>
+     * Everything held for the database is dropped with the pool: the reserved ID blocks,
+     * the search indexes, the cached profiles and the invitation code key. A pool created
+     * afterwards, possibly on another database, starts from that database alone.
+     * </p>
+     */
+    public static synchronized void shutdownPool() {
+        if (pool != null) {
+            System.out.println("Closing database connections: " + pool);
+            System.out.println("User profile cache: " + userCache);
+            if (maintenance != null) {
+                maintenance.shutdownNow();
+                maintenance = null;
             }
+            pool.close();
+            pool = null;
         }
-        return "";
+        questionIds.reset();
+        answerIds.reset();
+        searchIndexLoaded = false;
+        questionIndex.clear();
+        answerIndex.clear();
+        answerQuestionIds.clear();
+        userCache.clear();
+        codeGenerator = null;
+    }
+
+    public String getUserFirstName(String userName) throws SQLException {
+        UserCache.Profile profile = getProfile(userName);
+        return profile != null ? profile.getFirstName() : "";
     }
 
     public String getUserLastName(String userName) throws SQLException {
-        ensureConnected();
-        String query = "SELECT lastName FROM cse360users WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, userName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("lastName");
-            }
-        }
-        return "";
+        UserCache.Profile profile = getProfile(userName);
+        return profile != null ? profile.getLastName() : "";
     }
 
     public String getUserEmail(String userName) throws SQLException {
-        ensureConnected();
-        String query = "SELECT email FROM cse360users WHERE userName = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, userName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("email");
-            }
-        }
-        return "";
+        UserCache.Profile profile = getProfile(userName);
+        return profile != null ? profile.getEmail() : "";
     }
 
     //================================================================================
@@ -447,201 +1302,654 @@ public class DatabaseHelper {
     
     /**
      * Inserts a new question into the database.
+     * If the question has no ID yet (an ID of 0 or less), a new one is generated
+     * and set on the question.
+     *
+     * @return The ID the question was stored under.
      */
-    public void insertQuestion(Question question) throws SQLException {
-        ensureConnected();
+    public int insertQuestion(Question question) throws SQLException {
         String query = "INSERT INTO Questions (questionID, bodyText, postedBy, dateCreated, "
                     + "resolvedStatus, acceptedAnsID, newMessagesCount) "
                     + "VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setInt(1, question.getQuestionID());
-            pstmt.setString(2, question.getBodyText());
-            pstmt.setString(3, question.getPostedBy());
-            pstmt.setTimestamp(4, new Timestamp(question.getDateCreated().getTime()));
-            pstmt.setBoolean(5, question.isResolved());
-            pstmt.setInt(6, question.getAcceptedAnsID());
-            pstmt.setInt(7, question.getNewMessagesCount());
-            pstmt.executeUpdate();
-        }
+        // The question and its change log row commit together
+        return inTransaction(tx -> {
+            try (PooledConnection connection = getConnection()) {
+                if (question.getQuestionID() <= 0) {
+                    question.setQuestionID(questionIds.nextId(connection));
+                }
+                try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                    pstmt.setInt(1, question.getQuestionID());
+                    pstmt.setString(2, question.getBodyText());
+                    pstmt.setString(3, question.getPostedBy());
+                    pstmt.setTimestamp(4, new Timestamp(question.getDateCreated().getTime()));
+                    pstmt.setBoolean(5, question.isResolved());
+                    pstmt.setInt(6, question.getAcceptedAnsID());
+                    pstmt.setInt(7, question.getNewMessagesCount());
+                    pstmt.executeUpdate();
+                }
+            }
+            int questionID = question.getQuestionID();
+            String bodyText = question.getBodyText();
+            afterCommit(() -> questionIndex.put(questionID, bodyText));
+            publishChange(ChangeEvent.Entity.QUESTION, ChangeEvent.Op.INSERT, questionID, questionID, null);
+            return questionID;
+        });
     }
 
     /**
      * Updates an existing question in the database.
      */
     public void updateQuestion(Question question) throws SQLException {
-        ensureConnected();
         String query = "UPDATE Questions SET bodyText = ?, postedBy = ?, dateCreated = ?, "
                     + "resolvedStatus = ?, acceptedAnsID = ?, newMessagesCount = ? "
                     + "WHERE questionID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, question.getBodyText());
-            pstmt.setString(2, question.getPostedBy());
-            pstmt.setTimestamp(3, new Timestamp(question.getDateCreated().getTime()));
-            pstmt.setBoolean(4, question.isResolved());
-            pstmt.setInt(5, question.getAcceptedAnsID());
-            pstmt.setInt(6, question.getNewMessagesCount());
-            pstmt.setInt(7, question.getQuestionID());
-            pstmt.executeUpdate();
-        }
+        inTransaction(tx -> {
+            try (PooledConnection connection = getConnection();
+                 PreparedStatement pstmt = connection.prepareStatement(query)) {
+                pstmt.setString(1, question.getBodyText());
+                pstmt.setString(2, question.getPostedBy());
+                pstmt.setTimestamp(3, new Timestamp(question.getDateCreated().getTime()));
+                pstmt.setBoolean(4, question.isResolved());
+                pstmt.setInt(5, question.getAcceptedAnsID());
+                pstmt.setInt(6, question.getNewMessagesCount());
+                pstmt.setInt(7, question.getQuestionID());
+                pstmt.executeUpdate();
+            }
+            int questionID = question.getQuestionID();
+            String bodyText = question.getBodyText();
+            afterCommit(() -> questionIndex.put(questionID, bodyText));
+            publishChange(ChangeEvent.Entity.QUESTION, ChangeEvent.Op.UPDATE, questionID, questionID, null);
+            return null;
+        });
     }
 
     /**
      * Deletes a question from the database.
      */
     public void deleteQuestion(int questionID) throws SQLException {
-        ensureConnected();
-        // First delete all associated answers
-        String deleteAnswers = "DELETE FROM Answers WHERE questionID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(deleteAnswers)) {
-            pstmt.setInt(1, questionID);
-            pstmt.executeUpdate();
-        }
-        
-        // Then delete the question
-        String deleteQuestion = "DELETE FROM Questions WHERE questionID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(deleteQuestion)) {
-            pstmt.setInt(1, questionID);
-            pstmt.executeUpdate();
-        }
+        // Both deletes commit together
+        inTransaction(tx -> {
+            try (PooledConnection connection = getConnection()) {
+                // First delete all associated answers
+                String deleteAnswers = "DELETE FROM Answers WHERE questionID = ?";
+                try (PreparedStatement pstmt = connection.prepareStatement(deleteAnswers)) {
+                    pstmt.setInt(1, questionID);
+                    pstmt.executeUpdate();
+                }
+
+                // Then delete the question
+                String deleteQuestion = "DELETE FROM Questions WHERE questionID = ?";
+                try (PreparedStatement pstmt = connection.prepareStatement(deleteQuestion)) {
+                    pstmt.setInt(1, questionID);
+                    pstmt.executeUpdate();
+                }
+            }
+            afterCommit(() -> unindexQuestion(questionID));
+            // Its answers and feedback go with it, so one event covers them
+            publishChange(ChangeEvent.Entity.QUESTION, ChangeEvent.Op.DELETE, questionID, questionID, null);
+            return null;
+        });
+    }
+
+    /**
+     * Adds to a question's count of unread messages in one statement, so concurrent
+     * answers are all counted.
+     */
+    public void addNewMessages(int questionID, int count) throws SQLException {
+        String query = "UPDATE Questions SET newMessagesCount = newMessagesCount + ? WHERE questionID = ?";
+        inTransaction(tx -> {
+            try (PooledConnection connection = getConnection();
+                 PreparedStatement pstmt = connection.prepareStatement(query)) {
+                pstmt.setInt(1, count);
+                pstmt.setInt(2, questionID);
+                pstmt.executeUpdate();
+            }
+            publishChange(ChangeEvent.Entity.QUESTION, ChangeEvent.Op.UPDATE, questionID, questionID, null);
+            return null;
+        });
     }
 
     /**
      * Retrieves all questions from the database.
      */
     public List<Question> getAllQuestions() throws SQLException {
-        ensureConnected();
         List<Question> questions = new ArrayList<>();
         String query = "SELECT * FROM Questions";
-        try (PreparedStatement pstmt = connection.prepareStatement(query);
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
-                Question q = new Question(
-                    rs.getInt("questionID"),
-                    rs.getString("bodyText"),
-                    rs.getString("postedBy"),
-                    rs.getTimestamp("dateCreated")
-                );
-                q.setResolved(rs.getBoolean("resolvedStatus"));
-                q.setAcceptedAnsID(rs.getInt("acceptedAnsID"));
-                q.setNewMessagesCount(rs.getInt("newMessagesCount"));
-                questions.add(q);
+                questions.add(readQuestion(rs, "bodyText"));
+            }
+        }
+        return questions;
+    }
+
+    /**
+     * Streams every question, ordered by ID, reading STREAM_FETCH_SIZE rows at a time.
+     *
+     * @see #streamAllQuestions(int)
+     */
+    public Stream<Question> streamAllQuestions() throws SQLException {
+        return streamAllQuestions(STREAM_FETCH_SIZE);
+    }
+
+    /**
+     * Streams every question, ordered by ID, without loading them all into memory, for
+     * reports and exports over the whole archive. The stream holds a pooled connection
+     * until it is closed, so use it in a try-with-resources block.
+     *
+     * @param fetchSize The number of rows to fetch from the database at a time.
+     */
+    public Stream<Question> streamAllQuestions(int fetchSize) throws SQLException {
+        return streamRows("SELECT * FROM Questions ORDER BY questionID", fetchSize,
+                          rs -> readQuestion(rs, "bodyText"));
+    }
+
+    /**
+     * The order in which question pages are listed.
+     */
+    public enum QuestionSort {
+        OLDEST_FIRST,
+        NEWEST_FIRST
+    }
+
+    /**
+     * Retrieves one page of questions using keyset pagination.
+     * <p>
+     * Rows only carry a preview of the body text (at most QUESTION_PREVIEW_LENGTH
+     * characters); use {@link #getQuestionByID(int)} to load the full question before
+     * editing it.
+     * </p>
+     * 
+     * @param afterId The ID of the last question on the previous page, or 0 for the first page.
+     * @param limit The maximum number of questions to return.
+     * @param sort The order of the listing.
+     * @return Up to limit questions that come after afterId in the given order.
+     */
+    public List<Question> getQuestionsPage(int afterId, int limit, QuestionSort sort) throws SQLException {
+        List<Question> questions = new ArrayList<>();
+        boolean newestFirst = sort == QuestionSort.NEWEST_FIRST;
+        String query = QUESTION_PREVIEW_SELECT
+                     + (newestFirst ? "WHERE questionID < ? ORDER BY questionID DESC " : "WHERE questionID > ? ORDER BY questionID ")
+                     + "LIMIT ?";
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, newestFirst && afterId <= 0 ? Integer.MAX_VALUE : afterId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    questions.add(readQuestion(rs, "bodyPreview"));
+                }
             }
         }
         return questions;
     }
 
+    /**
+     * Searches question bodies with the full-text index.
+     * <p>
+     * Every word of the keywords must appear in the question, either whole or as the
+     * start of a longer word. Like {@link #getQuestionsPage}, rows only carry a preview
+     * of the body text.
+     * </p>
+     * 
+     * @param keywords The words to search for.
+     * @param limit The maximum number of questions to return.
+     * @return The matching questions, best match first.
+     */
+    public List<Question> searchQuestions(String keywords, int limit) throws SQLException {
+        ensureSearchIndex();
+        List<Integer> ids = questionIndex.search(keywords, limit);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Question> found = new HashMap<>();
+        String query = QUESTION_PREVIEW_SELECT + "WHERE questionID = ANY(?)";
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setObject(1, ids.toArray(new Integer[0]));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Question q = readQuestion(rs, "bodyPreview");
+                    found.put(q.getQuestionID(), q);
+                }
+            }
+        }
+        return inRankOrder(ids, found);
+    }
+
+    /**
+     * Retrieves a single question with its full body text.
+     * 
+     * @return The question, or null if it does not exist.
+     */
+    public Question getQuestionByID(int questionID) throws SQLException {
+        String query = "SELECT * FROM Questions WHERE questionID = ?";
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, questionID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return readQuestion(rs, "bodyText");
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves a single question as it appears in a listing, with only a preview of the
+     * body text, such as to update one row of a table after a change.
+     * 
+     * @return The question, or null if it does not exist.
+     */
+    public Question getQuestionPreview(int questionID) throws SQLException {
+        String query = QUESTION_PREVIEW_SELECT + "WHERE questionID = ?";
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, questionID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return readQuestion(rs, "bodyPreview");
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves several questions as they appear in a listing, in one query, such as to
+     * update the rows of a burst of changed questions.
+     * 
+     * @return A map from question ID to the question, without the IDs that do not exist.
+     */
+    public Map<Integer, Question> getQuestionPreviews(Collection<Integer> questionIDs) throws SQLException {
+        Map<Integer, Question> previews = new HashMap<>();
+        if (questionIDs.isEmpty()) {
+            return previews;
+        }
+        String query = QUESTION_PREVIEW_SELECT + "WHERE questionID = ANY(?)";
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setObject(1, questionIDs.toArray(new Integer[0]));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Question question = readQuestion(rs, "bodyPreview");
+                    previews.put(question.getQuestionID(), question);
+                }
+            }
+        }
+        return previews;
+    }
+
+    /**
+     * Returns the rows of found in the order of ids, skipping IDs that were not found.
+     */
+    private static <T> List<T> inRankOrder(List<Integer> ids, Map<Integer, T> found) {
+        List<T> ordered = new ArrayList<>(found.size());
+        for (int id : ids) {
+            T row = found.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Builds a Question from the current row of a result set.
+     * 
+     * @param bodyColumn The column holding the body text or its preview.
+     */
+    private static Question readQuestion(ResultSet rs, String bodyColumn) throws SQLException {
+        Question q = new Question(
+            rs.getInt("questionID"),
+            rs.getString(bodyColumn),
+            rs.getString("postedBy"),
+            rs.getTimestamp("dateCreated")
+        );
+        q.setResolved(rs.getBoolean("resolvedStatus"));
+        q.setAcceptedAnsID(rs.getInt("acceptedAnsID"));
+        q.setNewMessagesCount(rs.getInt("newMessagesCount"));
+        return q;
+    }
+
+    /**
+     * Retrieves the answer count and unread count of every question in one grouped query.
+     * 
+     * @return A map from question ID to its counts.
+     */
+    public Map<Integer, QuestionStats> getQuestionStats() throws SQLException {
+        return getQuestionStats(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Retrieves the answer count and unread count of the questions whose IDs fall in a
+     * range, such as the questions on one page, in one grouped query.
+     * 
+     * @param fromId The smallest question ID to include.
+     * @param toId The largest question ID to include.
+     * @return A map from question ID to its counts.
+     */
+    public Map<Integer, QuestionStats> getQuestionStats(int fromId, int toId) throws SQLException {
+        String query = QUESTION_STATS_SELECT + "WHERE q.questionID BETWEEN ? AND ? " + QUESTION_STATS_GROUP;
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, fromId);
+            pstmt.setInt(2, toId);
+            return readQuestionStats(pstmt);
+        }
+    }
+
+    /**
+     * Retrieves the answer count and unread count of the listed questions, such as
+     * search results scattered over the whole ID range, in one grouped query that only
+     * reads those questions.
+     * 
+     * @param questionIDs The questions to include.
+     * @return A map from question ID to its counts.
+     */
+    public Map<Integer, QuestionStats> getQuestionStats(Collection<Integer> questionIDs) throws SQLException {
+        if (questionIDs.isEmpty()) {
+            return new HashMap<>();
+        }
+        String query = QUESTION_STATS_SELECT + "WHERE q.questionID = ANY(?) " + QUESTION_STATS_GROUP;
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setObject(1, questionIDs.toArray(new Integer[0]));
+            return readQuestionStats(pstmt);
+        }
+    }
+
+    private static Map<Integer, QuestionStats> readQuestionStats(PreparedStatement pstmt) throws SQLException {
+        Map<Integer, QuestionStats> stats = new HashMap<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                int questionID = rs.getInt("questionID");
+                stats.put(questionID, new QuestionStats(
+                    questionID,
+                    rs.getInt("answerCount"),
+                    rs.getInt("newMessagesCount")
+                ));
+            }
+        }
+        return stats;
+    }
+
     /**
      * Inserts a new answer into the database.
+     * If the answer has no ID yet (an ID of 0 or less), a new one is generated
+     * and set on the answer.
+     *
+     * @return The ID the answer was stored under.
      */
-    public void insertAnswer(Answer answer) throws SQLException {
-        ensureConnected();
+    public int insertAnswer(Answer answer) throws SQLException {
         String query = "INSERT INTO Answers (answerID, questionID, bodyText, answeredBy, dateCreated) "
                     + "VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setInt(1, answer.getAnsID());
-            pstmt.setInt(2, answer.getQuestionID());
-            pstmt.setString(3, answer.getBodyText());
-            pstmt.setString(4, answer.getAnsweredBy());
-            pstmt.setTimestamp(5, new Timestamp(answer.getDateCreated().getTime()));
-            pstmt.executeUpdate();
-        }
+        // The answer and its change log row commit together
+        return inTransaction(tx -> {
+            try (PooledConnection connection = getConnection()) {
+                if (answer.getAnsID() <= 0) {
+                    answer.setAnsID(answerIds.nextId(connection));
+                }
+                try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                    pstmt.setInt(1, answer.getAnsID());
+                    pstmt.setInt(2, answer.getQuestionID());
+                    pstmt.setString(3, answer.getBodyText());
+                    pstmt.setString(4, answer.getAnsweredBy());
+                    pstmt.setTimestamp(5, new Timestamp(answer.getDateCreated().getTime()));
+                    pstmt.executeUpdate();
+                }
+            }
+            int answerID = answer.getAnsID();
+            int questionID = answer.getQuestionID();
+            String bodyText = answer.getBodyText();
+            afterCommit(() -> indexAnswer(answerID, questionID, bodyText));
+            publishChange(ChangeEvent.Entity.ANSWER, ChangeEvent.Op.INSERT, answerID, questionID, null);
+            return answerID;
+        });
     }
 
     /**
      * Updates an existing answer in the database.
      */
     public void updateAnswer(Answer answer) throws SQLException {
-        ensureConnected();
         String query = "UPDATE Answers SET bodyText = ?, answeredBy = ?, dateCreated = ? "
                     + "WHERE answerID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, answer.getBodyText());
-            pstmt.setString(2, answer.getAnsweredBy());
-            pstmt.setTimestamp(3, new Timestamp(answer.getDateCreated().getTime()));
-            pstmt.setInt(4, answer.getAnsID());
-            pstmt.executeUpdate();
-        }
+        inTransaction(tx -> {
+            try (PooledConnection connection = getConnection();
+                 PreparedStatement pstmt = connection.prepareStatement(query)) {
+                pstmt.setString(1, answer.getBodyText());
+                pstmt.setString(2, answer.getAnsweredBy());
+                pstmt.setTimestamp(3, new Timestamp(answer.getDateCreated().getTime()));
+                pstmt.setInt(4, answer.getAnsID());
+                pstmt.executeUpdate();
+            }
+            int answerID = answer.getAnsID();
+            int questionID = answer.getQuestionID();
+            String bodyText = answer.getBodyText();
+            afterCommit(() -> indexAnswer(answerID, questionID, bodyText));
+            publishChange(ChangeEvent.Entity.ANSWER, ChangeEvent.Op.UPDATE, answerID, questionID, null);
+            return null;
+        });
     }
 
     /**
      * Deletes an answer from the database.
      */
     public void deleteAnswer(int answerID) throws SQLException {
-        ensureConnected();
-        String query = "DELETE FROM Answers WHERE answerID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setInt(1, answerID);
-            pstmt.executeUpdate();
-        }
+        // Returns the deleted row's question, which the change event needs
+        String query = "SELECT questionID FROM OLD TABLE (DELETE FROM Answers WHERE answerID = ?)";
+        inTransaction(tx -> {
+            int questionID = -1;
+            try (PooledConnection connection = getConnection();
+                 PreparedStatement pstmt = connection.prepareStatement(query)) {
+                pstmt.setInt(1, answerID);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        questionID = rs.getInt("questionID");
+                    }
+                }
+            }
+            afterCommit(() -> {
+                answerIndex.remove(answerID);
+                answerQuestionIds.remove(answerID);
+            });
+            if (questionID != -1) {
+                publishChange(ChangeEvent.Entity.ANSWER, ChangeEvent.Op.DELETE, answerID, questionID, null);
+            }
+            return null;
+        });
     }
 
     /**
      * Retrieves all answers for a specific question.
      */
     public List<Answer> getAnswersForQuestion(int questionID) throws SQLException {
-        ensureConnected();
         List<Answer> answers = new ArrayList<>();
         String query = "SELECT * FROM Answers WHERE questionID = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setInt(1, questionID);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    Answer a = new Answer(
-                        rs.getInt("answerID"),
-                        rs.getInt("questionID"),
-                        rs.getString("bodyText"),
-                        rs.getString("answeredBy"),
-                        rs.getTimestamp("dateCreated")
-                    );
-                    answers.add(a);
+                    answers.add(readAnswer(rs));
                 }
             }
         }
         return answers;
     }
 
+    /**
+     * Retrieves a single answer.
+     * 
+     * @return The answer, or null if it does not exist.
+     */
+    public Answer getAnswerByID(int answerID) throws SQLException {
+        String query = "SELECT * FROM Answers WHERE answerID = ?";
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, answerID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return readAnswer(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds an Answer from the current row of a result set.
+     */
+    private static Answer readAnswer(ResultSet rs) throws SQLException {
+        return new Answer(
+            rs.getInt("answerID"),
+            rs.getInt("questionID"),
+            rs.getString("bodyText"),
+            rs.getString("answeredBy"),
+            rs.getTimestamp("dateCreated")
+        );
+    }
+
+    /**
+     * Searches the answers of one question with the full-text index.
+     * 
+     * @param questionID The question whose answers are searched.
+     * @param keywords The words to search for; each must appear whole or as a prefix.
+     * @return The matching answers, best match first.
+     */
+    public List<Answer> searchAnswers(int questionID, String keywords) throws SQLException {
+        ensureSearchIndex();
+        List<Integer> ids = answerIndex.search(keywords, Integer.MAX_VALUE,
+            answerID -> answerQuestionIds.getOrDefault(answerID, -1) == questionID);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Answer> found = new HashMap<>();
+        for (Answer a : getAnswersForQuestion(questionID)) {
+            found.put(a.getAnsID(), a);
+        }
+        return inRankOrder(ids, found);
+    }
+
+    /**
+     * Removes a question and its answers from the full-text indexes.
+     */
+    private static void unindexQuestion(int questionID) {
+        questionIndex.remove(questionID);
+        answerQuestionIds.entrySet().removeIf(entry -> {
+            if (entry.getValue() == questionID) {
+                answerIndex.remove(entry.getKey());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Adds an answer to the full-text index, replacing its previous text.
+     */
+    private static void indexAnswer(int answerID, int questionID, String bodyText) {
+        answerQuestionIds.put(answerID, questionID);
+        answerIndex.put(answerID, bodyText);
+    }
+
+    /**
+     * Fills the full-text indexes from the database the first time they are needed.
+     * Later changes made through this class, or read from the change feed, update the
+     * indexes directly.
+     */
+    private void ensureSearchIndex() throws SQLException {
+        if (searchIndexLoaded) {
+            return;
+        }
+        synchronized (DatabaseHelper.class) {
+            if (searchIndexLoaded) {
+                return;
+            }
+            try (PooledConnection connection = getConnection()) {
+                try (PreparedStatement pstmt = connection.prepareStatement("SELECT questionID, bodyText FROM Questions");
+                     ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        questionIndex.put(rs.getInt("questionID"), rs.getString("bodyText"));
+                    }
+                }
+                try (PreparedStatement pstmt = connection.prepareStatement("SELECT answerID, questionID, bodyText FROM Answers");
+                     ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        indexAnswer(rs.getInt("answerID"), rs.getInt("questionID"), rs.getString("bodyText"));
+                    }
+                }
+            }
+            searchIndexLoaded = true;
+        }
+    }
+
     /**
      * Retrieves all answers from the database.
      */
     public List<Answer> getAllAnswers() throws SQLException {
-        ensureConnected();
         List<Answer> answers = new ArrayList<>();
         String query = "SELECT * FROM Answers";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
-                Answer a = new Answer(
-                    rs.getInt("answerID"),
-                    rs.getInt("questionID"),
-                    rs.getString("bodyText"),
-                    rs.getString("answeredBy"),
-                    rs.getTimestamp("dateCreated")
-                );
-                answers.add(a);
+                answers.add(readAnswer(rs));
             }
         }
         return answers;
     }
+
+    /**
+     * Streams every answer, ordered by ID, reading STREAM_FETCH_SIZE rows at a time.
+     *
+     * @see #streamAllAnswers(int)
+     */
+    public Stream<Answer> streamAllAnswers() throws SQLException {
+        return streamAllAnswers(STREAM_FETCH_SIZE);
+    }
+
+    /**
+     * Streams every answer, ordered by ID, without loading them all into memory. The
+     * stream holds a pooled connection until it is closed, so use it in a
+     * try-with-resources block.
+     *
+     * @param fetchSize The number of rows to fetch from the database at a time.
+     */
+    public Stream<Answer> streamAllAnswers(int fetchSize) throws SQLException {
+        return streamRows("SELECT * FROM Answers ORDER BY answerID", fetchSize, DatabaseHelper::readAnswer);
+    }
     /**
      * Inserts feedback entry into the database for a specific question.
      */
     public void insertFeedback(int questionID, String sentTo, String sentBy, String feedbackText) throws SQLException {
-        ensureConnected();
-        String query = "INSERT INTO Feedback (questionID, sentTo, sentBy, feedbackText) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setInt(1, questionID);
-            pstmt.setString(2, sentTo);
-            pstmt.setString(3, sentBy);
-            pstmt.setString(4, feedbackText);
-            pstmt.executeUpdate();
-        }
+        String query = "SELECT id FROM FINAL TABLE ("
+                     + "INSERT INTO Feedback (questionID, sentTo, sentBy, feedbackText) VALUES (?, ?, ?, ?))";
+        inTransaction(tx -> {
+            int feedbackID;
+            try (PooledConnection connection = getConnection();
+                 PreparedStatement pstmt = connection.prepareStatement(query)) {
+                pstmt.setInt(1, questionID);
+                pstmt.setString(2, sentTo);
+                pstmt.setString(3, sentBy);
+                pstmt.setString(4, feedbackText);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    feedbackID = rs.getInt("id");
+                }
+            }
+            publishChange(ChangeEvent.Entity.FEEDBACK, ChangeEvent.Op.INSERT, feedbackID, questionID, sentTo);
+            return null;
+        });
     }
 
     /**
      * Retrieves all feedback and replies for a specific user.
      */
     public List<String[]> getFeedbackForUser(String username) throws SQLException {
-        ensureConnected();
         List<String[]> feedbackList = new ArrayList<>();
 
         String query = "SELECT f.id, f.feedbackText, f.sentBy, q.bodyText, f.questionID, f.parentID, f.timestamp, "
@@ -651,54 +1959,95 @@ public class DatabaseHelper {
                      + "WHERE f.sentTo = ? "
                      + "ORDER BY f.id DESC";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, username);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                String feedbackID = String.valueOf(rs.getInt("id"));
-                String questionID = String.valueOf(rs.getInt("questionID"));
-                String questionText = rs.getString("bodyText");  
-                String feedbackText = rs.getString("feedbackText");
-                String sentBy = rs.getString("sentBy");
-                String dateTime = rs.getTimestamp("timestamp").toString();
-                String type = rs.getString("type");
-
-                feedbackList.add(new String[]{type, questionID, feedbackID, questionText, feedbackText, sentBy, dateTime});
+                feedbackList.add(readFeedback(rs));
             }
         }
         return feedbackList;
     }
+
+    /**
+     * Retrieves one feedback or reply entry in the same form as {@link #getFeedbackForUser(String)}.
+     * 
+     * @return The entry, or null if it does not exist.
+     */
+    public String[] getFeedbackByID(int feedbackID) throws SQLException {
+        String query = "SELECT f.id, f.feedbackText, f.sentBy, q.bodyText, f.questionID, f.parentID, f.timestamp, "
+                     + "CASE WHEN f.parentID IS NULL THEN 'Feedback' ELSE 'Reply' END AS type "
+                     + "FROM Feedback f "
+                     + "JOIN Questions q ON f.questionID = q.questionID "
+                     + "WHERE f.id = ?";
+        try (PooledConnection connection = getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, feedbackID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return readFeedback(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds an inbox row from the current row of a result set: type, question ID,
+     * feedback ID, question text, feedback text, sender and date-time.
+     */
+    private static String[] readFeedback(ResultSet rs) throws SQLException {
+        String feedbackID = String.valueOf(rs.getInt("id"));
+        String questionID = String.valueOf(rs.getInt("questionID"));
+        String questionText = rs.getString("bodyText");  
+        String feedbackText = rs.getString("feedbackText");
+        String sentBy = rs.getString("sentBy");
+        String dateTime = rs.getTimestamp("timestamp").toString();
+        String type = rs.getString("type");
+
+        return new String[]{type, questionID, feedbackID, questionText, feedbackText, sentBy, dateTime};
+    }
     
     /**
      * Inserts a reply to an existing feedback entry.
      */
     public void insertReply(int parentID, String sentTo, String sentBy, String replyText) throws SQLException {
-        ensureConnected();
-        
-        String getQuestionQuery = "SELECT questionID FROM Feedback WHERE id = ?";
-        int questionID = -1;
+        // The lookup and the insert commit together
+        inTransaction(tx -> {
+            try (PooledConnection connection = getConnection()) {
+                String getQuestionQuery = "SELECT questionID FROM Feedback WHERE id = ?";
+                int questionID = -1;
 
-        try (PreparedStatement pstmt = connection.prepareStatement(getQuestionQuery)) {
-            pstmt.setInt(1, parentID);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                questionID = rs.getInt("questionID");
-            }
-        }
+                try (PreparedStatement pstmt = connection.prepareStatement(getQuestionQuery)) {
+                    pstmt.setInt(1, parentID);
+                    ResultSet rs = pstmt.executeQuery();
+                    if (rs.next()) {
+                        questionID = rs.getInt("questionID");
+                    }
+                }
 
-        if (questionID == -1) {
-            throw new SQLException("Error: Unable to retrieve questionID for reply.");
-        }
+                if (questionID == -1) {
+                    throw new SQLException("Error: Unable to retrieve questionID for reply.");
+                }
 
-        String insertReplyQuery = "INSERT INTO Feedback (parentID, questionID, sentTo, sentBy, feedbackText) VALUES (?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(insertReplyQuery)) {
-            pstmt.setInt(1, parentID);
-            pstmt.setInt(2, questionID);
-            pstmt.setString(3, sentTo);
-            pstmt.setString(4, sentBy);
-            pstmt.setString(5, replyText);
-            pstmt.executeUpdate();
-        }
+                String insertReplyQuery = "SELECT id FROM FINAL TABLE ("
+                        + "INSERT INTO Feedback (parentID, questionID, sentTo, sentBy, feedbackText) VALUES (?, ?, ?, ?, ?))";
+
+                try (PreparedStatement pstmt = connection.prepareStatement(insertReplyQuery)) {
+                    pstmt.setInt(1, parentID);
+                    pstmt.setInt(2, questionID);
+                    pstmt.setString(3, sentTo);
+                    pstmt.setString(4, sentBy);
+                    pstmt.setString(5, replyText);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        rs.next();
+                        publishChange(ChangeEvent.Entity.FEEDBACK, ChangeEvent.Op.INSERT, rs.getInt("id"),
+                                questionID, sentTo);
+                    }
+                }
+            }
+            return null;
+        });
     }
 }
\ No newline at end of file
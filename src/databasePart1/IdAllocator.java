@@ -0,0 +1,83 @@
+package databasePart1;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The IdAllocator class hands out unique IDs from a database sequence.
+ * <p>
+ * The sequence is created with an increment equal to the block size, so each
+ * NEXT VALUE reserves a whole block of IDs for this process. IDs inside the block are
+ * then handed out from memory, and another round-trip is only needed when the block
+ * runs out. Other processes reserve their own blocks, so IDs never collide.
+ * </p>
+ */
+public class IdAllocator {
+
+    private final String sequenceName;
+    private final int blockSize;
+    private long next = 0;      // Next ID to hand out
+    private long limit = 0;     // First ID past the reserved block
+
+    /**
+     * @param sequenceName The sequence to draw blocks from. It must have been created
+     *                     with INCREMENT BY blockSize.
+     * @param blockSize    The number of IDs reserved per round-trip.
+     */
+    public IdAllocator(String sequenceName, int blockSize) {
+        this.sequenceName = sequenceName;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the next unused ID, reserving a new block from the sequence if needed.
+     *
+     * @param connection The connection used to reserve a new block.
+     */
+    public synchronized int nextId(PooledConnection connection) throws SQLException {
+        if (next >= limit) {
+            try (PreparedStatement pstmt = connection.prepareStatement("SELECT NEXT VALUE FOR " + sequenceName);
+                 ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Sequence " + sequenceName + " returned no value");
+                }
+                next = rs.getLong(1);
+                limit = next + blockSize;
+            }
+        }
+        return (int) next++;
+    }
+
+    /**
+     * Drops the reserved block, so the next ID comes from a new block. Called when the
+     * sequence may belong to another database.
+     */
+    public synchronized void reset() {
+        next = 0;
+        limit = 0;
+    }
+
+    /**
+     * Creates the sequence if it does not exist yet, starting after the largest ID
+     * already stored in the given column.
+     *
+     * @param statement    A statement to run the DDL on.
+     * @param sequenceName The sequence to create.
+     * @param table        The table whose IDs the sequence will generate.
+     * @param idColumn     The ID column of that table.
+     * @param blockSize    The increment of the sequence.
+     */
+    static void createSequence(Statement statement, String sequenceName, String table,
+            String idColumn, int blockSize) throws SQLException {
+        long start = 1;
+        try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + table)) {
+            if (rs.next()) {
+                start = rs.getLong(1);
+            }
+        }
+        statement.execute("CREATE SEQUENCE IF NOT EXISTS " + sequenceName
+                + " START WITH " + start + " INCREMENT BY " + blockSize);
+    }
+}
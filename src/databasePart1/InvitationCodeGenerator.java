@@ -0,0 +1,79 @@
+package databasePart1;
+
+/**
+ * Turns counter values into invitation codes that never collide and do not look sequential.
+ * <p>
+ * A counter value below 2<sup>40</sup> is scrambled with a four-round Feistel network over
+ * two 20-bit halves. Because each round is reversible the result is a permutation, so
+ * distinct counters always give distinct codes. The 40-bit result is written as eight
+ * Crockford base-32 characters, which leave out I, L, O and U so a code is easy to read
+ * aloud and type. The round keys come from a per-database secret, so codes cannot be
+ * predicted from the source.
+ * </p>
+ */
+public class InvitationCodeGenerator {
+    public static final int CODE_LENGTH = 8;
+    public static final long CODE_SPACE = 1L << 40;
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final int HALF_BITS = 20;
+    private static final int HALF_MASK = (1 << HALF_BITS) - 1;
+    private static final int ROUNDS = 4;
+
+    private final int[] roundKeys = new int[ROUNDS];
+
+    /**
+     * @param key The secret that selects the permutation.
+     */
+    public InvitationCodeGenerator(long key) {
+        long state = key;
+        for (int i = 0; i < ROUNDS; i++) {
+            // SplitMix64 step to spread the key over the round keys
+            state += 0x9E3779B97F4A7C15L;
+            long z = state;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            roundKeys[i] = (int) (z ^ (z >>> 31));
+        }
+    }
+
+    private static int round(int half, int key) {
+        int x = (half ^ key) * 0x85EBCA6B;
+        x ^= x >>> 13;
+        x *= 0xC2B2AE35;
+        x ^= x >>> 16;
+        return x & HALF_MASK;
+    }
+
+    /**
+     * Scrambles a counter value. Distinct values give distinct results.
+     *
+     * @param counter A value from 0 to CODE_SPACE - 1.
+     */
+    public long permute(long counter) {
+        if (counter < 0 || counter >= CODE_SPACE) {
+            throw new IllegalArgumentException("Invitation counter out of range: " + counter);
+        }
+        int left = (int) (counter >>> HALF_BITS);
+        int right = (int) counter & HALF_MASK;
+        for (int i = 0; i < ROUNDS; i++) {
+            int next = left ^ round(right, roundKeys[i]);
+            left = right;
+            right = next;
+        }
+        return ((long) left << HALF_BITS) | right;
+    }
+
+    /**
+     * Returns the invitation code for a counter value.
+     */
+    public String code(long counter) {
+        long value = permute(counter);
+        char[] code = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHABET.charAt((int) (value & 31));
+            value >>>= 5;
+        }
+        return new String(code);
+    }
+}
@@ -0,0 +1,87 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A connection checked out of a {@link ConnectionPool}.
+ * Closing a PooledConnection hands the underlying JDBC connection back to the pool
+ * instead of closing it, so it is meant to be used in a try-with-resources block.
+ */
+public class PooledConnection implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statementCache;
+    private long lastUsedMillis;        // When the connection was last returned or validated
+    private boolean checkedOut;
+    private boolean pinned;             // While pinned, close() keeps the connection checked out
+
+    PooledConnection(ConnectionPool pool, Connection connection, int statementCacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = new StatementCache(connection, statementCacheSize);
+        this.lastUsedMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the raw JDBC connection for operations not covered by the helpers below.
+     * The raw connection must not be closed directly.
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Returns a prepared statement for the SQL text from this connection's statement
+     * cache. Closing the statement returns it to the cache.
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return statementCache.prepare(sql);
+    }
+
+    public Statement createStatement() throws SQLException {
+        return connection.createStatement();
+    }
+
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    long getLastUsedMillis() {
+        return lastUsedMillis;
+    }
+
+    void touch() {
+        lastUsedMillis = System.currentTimeMillis();
+    }
+
+    boolean isCheckedOut() {
+        return checkedOut;
+    }
+
+    void setCheckedOut(boolean checkedOut) {
+        this.checkedOut = checkedOut;
+    }
+
+    /**
+     * Pins or unpins the connection. A transaction pins its connection so the helper
+     * methods it calls can share it; their try-with-resources blocks then leave it open.
+     */
+    void setPinned(boolean pinned) {
+        this.pinned = pinned;
+    }
+
+    /**
+     * Returns the connection to the pool, unless it is pinned to a transaction.
+     */
+    @Override
+    public void close() {
+        if (pinned) {
+            return;
+        }
+        pool.release(this);
+    }
+}
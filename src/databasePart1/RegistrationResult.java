@@ -0,0 +1,42 @@
+package databasePart1;
+
+import application.User;
+
+/**
+ * The RegistrationResult class holds the outcome of
+ * {@link DatabaseHelper#registerWithInvitation(String, String, String, String, String, String)}.
+ * On success it carries the new user with the roles granted by the invitation code.
+ */
+public class RegistrationResult {
+
+    /**
+     * How the sign-up ended.
+     */
+    public enum Status {
+        /** The code was redeemed and the account created; the user is available. */
+        SUCCESS,
+        /** The code does not exist, has expired or was already redeemed. */
+        INVALID_CODE,
+        /** The user name is taken; the code was not redeemed. */
+        NAME_TAKEN
+    }
+
+    private final Status status;
+    private final User user;
+
+    RegistrationResult(Status status, User user) {
+        this.status = status;
+        this.user = user;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the new user, or null unless the status is SUCCESS.
+     */
+    public User getUser() {
+        return user;
+    }
+}
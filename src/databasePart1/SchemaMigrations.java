@@ -0,0 +1,112 @@
+package databasePart1;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SchemaMigrations class upgrades the database schema in place at startup.
+ * <p>
+ * Each migration has a version number and is applied at most once. The versions that
+ * have been applied are recorded in the SchemaVersion table, so a database created by
+ * an older build only runs the steps it is missing. Steps should be written so they
+ * can safely run against a database that already has part of the change
+ * (for example with IF NOT EXISTS), because databases created before this table
+ * existed start at version 0.
+ * </p>
+ */
+public class SchemaMigrations {
+
+    /**
+     * A single schema change.
+     */
+    @FunctionalInterface
+    public interface Migration {
+        void apply(Statement statement) throws SQLException;
+    }
+
+    private static class Step {
+        final int version;
+        final String description;
+        final Migration migration;
+
+        Step(int version, String description, Migration migration) {
+            this.version = version;
+            this.description = description;
+            this.migration = migration;
+        }
+    }
+
+    private final List<Step> steps = new ArrayList<>();
+
+    /**
+     * Registers a migration. Versions must be added in increasing order.
+     *
+     * @param version     The schema version this step upgrades to.
+     * @param description A short description stored in the SchemaVersion table.
+     * @param migration   The change to apply.
+     * @return This object, so steps can be chained.
+     */
+    public SchemaMigrations add(int version, String description, Migration migration) {
+        if (!steps.isEmpty() && steps.get(steps.size() - 1).version >= version) {
+            throw new IllegalArgumentException("Migration versions must increase: " + version);
+        }
+        steps.add(new Step(version, description, migration));
+        return this;
+    }
+
+    /**
+     * Applies every migration newer than the database's current version.
+     *
+     * @param connection The connection to run the migrations on.
+     * @return The schema version after migrating.
+     */
+    public int migrate(PooledConnection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS SchemaVersion ("
+                    + "version INT PRIMARY KEY, "
+                    + "description VARCHAR(255), "
+                    + "appliedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+
+            int current = getCurrentVersion(statement);
+            for (Step step : steps) {
+                if (step.version <= current) {
+                    continue;
+                }
+                System.out.println("Upgrading database schema to version " + step.version
+                        + ": " + step.description);
+                step.migration.apply(statement);
+                recordVersion(connection, step);
+                current = step.version;
+            }
+            return current;
+        }
+    }
+
+    private int getCurrentVersion(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(version), 0) FROM SchemaVersion")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void recordVersion(PooledConnection connection, Step step) throws SQLException {
+        // MERGE so a second process starting at the same time does not fail on the key
+        String query = "MERGE INTO SchemaVersion (version, description) KEY (version) VALUES (?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, step.version);
+            pstmt.setString(2, step.description);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns the newest version registered, which is the version a fully migrated
+     * database is at.
+     */
+    public int getLatestVersion() {
+        return steps.isEmpty() ? 0 : steps.get(steps.size() - 1).version;
+    }
+}
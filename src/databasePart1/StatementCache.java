@@ -0,0 +1,196 @@
+package databasePart1;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The StatementCache class keeps the prepared statements of one pooled connection,
+ * keyed by their SQL text, so hot queries are parsed once per connection instead of
+ * once per call.
+ * <p>
+ * Statements handed out by the cache can still be used in a try-with-resources block:
+ * closing one only clears its parameters and makes it available again. When the cache
+ * is full the least recently used statement is closed for real.
+ * </p>
+ */
+public class StatementCache {
+
+    // Hit and miss totals across every connection in the pool
+    private static final AtomicLong totalHits = new AtomicLong();
+    private static final AtomicLong totalMisses = new AtomicLong();
+
+    private final Connection connection;
+    private final Map<String, Entry> statements;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * A cached statement and whether a caller is currently using it.
+     */
+    private static class Entry {
+        final PreparedStatement statement;
+        final PreparedStatement handle;     // The proxy given to callers
+        boolean inUse;
+
+        Entry(PreparedStatement statement, PreparedStatement handle) {
+            this.statement = statement;
+            this.handle = handle;
+        }
+    }
+
+    /**
+     * Creates an empty cache for a connection.
+     *
+     * @param connection The connection the statements are prepared on.
+     * @param maxSize    The number of statements kept before the least recently used is closed.
+     */
+    public StatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        // An access-ordered LinkedHashMap keeps the least recently used statement first
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize && !eldest.getValue().inUse) {
+                    closeQuietly(eldest.getValue().statement);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a prepared statement for the SQL text, reusing a cached one when possible.
+     * If the cached statement is already in use (for example by an outer query on the
+     * same connection), a separate uncached statement is returned instead.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        Entry entry = statements.get(sql);
+        if (entry != null && !entry.inUse) {
+            hits++;
+            totalHits.incrementAndGet();
+            entry.inUse = true;
+            return entry.handle;
+        }
+
+        misses++;
+        totalMisses.incrementAndGet();
+        if (entry != null) {
+            return connection.prepareStatement(sql);
+        }
+
+        PreparedStatement statement = connection.prepareStatement(sql);
+        Entry created = new Entry(statement, wrap(sql, statement));
+        created.inUse = true;
+        statements.put(sql, created);
+        return created.handle;
+    }
+
+    /**
+     * Creates the handle given to callers. Every call is passed through to the real
+     * statement except close(), which returns the statement to the cache.
+     */
+    private PreparedStatement wrap(String sql, PreparedStatement statement) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                release(sql, statement);
+                return null;
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, handler);
+    }
+
+    private void release(String sql, PreparedStatement statement) {
+        Entry entry = statements.get(sql);
+        if (entry == null || entry.statement != statement) {
+            // Evicted while in use
+            closeQuietly(statement);
+            return;
+        }
+        try {
+            statement.clearParameters();
+            entry.inUse = false;
+        } catch (SQLException e) {
+            // A broken statement is dropped so the next call prepares a fresh one
+            statements.remove(sql);
+            closeQuietly(statement);
+        }
+    }
+
+    /**
+     * Makes every cached statement available again. Called when the connection goes back
+     * to the pool, in case a caller did not close a statement it was given.
+     */
+    void releaseAll() {
+        for (Entry entry : statements.values()) {
+            if (entry.inUse) {
+                try {
+                    entry.statement.clearParameters();
+                } catch (SQLException e) {
+                    // The connection is checked again before it is reused
+                }
+                entry.inUse = false;
+            }
+        }
+    }
+
+    /**
+     * Closes every cached statement.
+     */
+    public void clear() {
+        for (Entry entry : statements.values()) {
+            closeQuietly(entry.statement);
+        }
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /** Returns the number of cache hits across every pooled connection. */
+    public static long getTotalHits() {
+        return totalHits.get();
+    }
+
+    /** Returns the number of cache misses across every pooled connection. */
+    public static long getTotalMisses() {
+        return totalMisses.get();
+    }
+
+    /** Returns the fraction of statement requests served from a cache, from 0 to 1. */
+    public static double getTotalHitRate() {
+        long h = totalHits.get();
+        long total = h + totalMisses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+}
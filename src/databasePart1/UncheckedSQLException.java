@@ -0,0 +1,20 @@
+package databasePart1;
+
+import java.sql.SQLException;
+
+/**
+ * Wraps an SQLException where a checked exception cannot be thrown, such as while a
+ * stream of rows returned by {@link DatabaseHelper} is being consumed.
+ */
+public class UncheckedSQLException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -0,0 +1,168 @@
+package databasePart1;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The UserCache class keeps recently used user profiles in memory so that role, name
+ * and existence lookups do not go to the database every time.
+ * <p>
+ * Entries expire after a fixed time, and the least recently used entry is dropped once
+ * the cache is full. Lookups for user names that do not exist are cached as well.
+ * DatabaseHelper removes a user's entry whenever it changes or deletes that user, or the
+ * change feed reports that another process did; the expiry only matters for changes made
+ * outside the application. Safe to use from several threads.
+ * </p>
+ */
+public class UserCache {
+
+    /**
+     * The cached columns of one user. The password is never cached.
+     */
+    public static class Profile {
+        private final String role;
+        private final String firstName;
+        private final String lastName;
+        private final String email;
+
+        public Profile(String role, String firstName, String lastName, String email) {
+            this.role = role;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+        }
+
+        public String getRole() { return role; }
+        public String getFirstName() { return firstName; }
+        public String getLastName() { return lastName; }
+        public String getEmail() { return email; }
+    }
+
+    /**
+     * Result of a cache lookup.
+     */
+    public static class Lookup {
+        private final boolean found;
+        private final Profile profile;
+
+        private Lookup(boolean found, Profile profile) {
+            this.found = found;
+            this.profile = profile;
+        }
+
+        /** True if the cache had an answer, which may be that the user does not exist. */
+        public boolean isFound() { return found; }
+
+        /** The profile, or null if the user does not exist. */
+        public Profile getProfile() { return profile; }
+    }
+
+    private static final Lookup MISS = new Lookup(false, null);
+
+    private static class Entry {
+        final Profile profile;      // null if the user does not exist
+        final long expiresAt;
+
+        Entry(Profile profile, long expiresAt) {
+            this.profile = profile;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * @param maxSize   The most users kept in memory.
+     * @param ttlMillis How long an entry may be used before it is loaded again.
+     */
+    public UserCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        // Access order, so the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > UserCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Looks a user up in the cache.
+     *
+     * @param userName The user name.
+     * @return A lookup whose isFound() is false if the user must be loaded from the database.
+     */
+    public synchronized Lookup get(String userName) {
+        Entry entry = entries.get(userName);
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(userName);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return MISS;
+        }
+        hits++;
+        return new Lookup(true, entry.profile);
+    }
+
+    /**
+     * Stores a user's profile.
+     *
+     * @param userName The user name.
+     * @param profile  The profile, or null to record that the user does not exist.
+     */
+    public synchronized void put(String userName, Profile profile) {
+        entries.put(userName, new Entry(profile, System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * Removes a user, so the next lookup reads the database again.
+     */
+    public synchronized void invalidate(String userName) {
+        entries.remove(userName);
+    }
+
+    /**
+     * Removes every user.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the share of lookups answered from memory, between 0 and 1.
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("UserCache[size=%d, max=%d, hits=%d, misses=%d, hitRate=%.2f, evicted=%d]",
+                entries.size(), maxSize, hits, misses, getHitRate(), evictions);
+    }
+}